@@ -0,0 +1,121 @@
+package recommender;
+
+import javax.swing.*;
+import java.awt.*;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+public class Application extends JFrame {
+    private static final int TOP_RESULTS = Config.positive("app.topK", 2);
+    // clusters searched per query, and with two-level clustering the groups they are picked from
+    private static final int PROBES = Integer.getInteger("app.probes", 1);
+    private static final int GROUP_PROBES = Integer.getInteger("app.groupProbes", 1);
+    private QueryEngine engine;
+    private JTextArea inputArea;
+    private JButton findButton;
+    private JTextArea resultsArea;
+    private SwingWorker<QueryEngine.Answer, Void> search; // the running query, cancelled by a newer one
+
+    public static void main() {
+        SwingUtilities.invokeLater(() -> new Application().setVisible(true));
+    }
+
+    public Application() {
+        setupGUI();
+        loadData();
+    }
+
+    // the window is up while the snapshot loads, queries are enabled once it is in
+    private void loadData() {
+        resultsArea.setText("Loading...");
+        new SwingWorker<QueryEngine, Void>() {
+            @Override
+            protected QueryEngine doInBackground() throws Exception {
+                // pages stay in the mapped file unless -Dapp.eager=true
+                return QueryEngine.load(Path.of("data/snapshot.bin"), Boolean.getBoolean("app.eager"));
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    engine = get();
+                    findButton.setEnabled(true);
+                    resultsArea.setText("");
+                } catch (InterruptedException | ExecutionException e) {
+                    JOptionPane.showMessageDialog(Application.this, "Could not load data files.\nRun the loader first!",
+                            "Error", JOptionPane.ERROR_MESSAGE);
+                    System.exit(1);
+                }
+            }
+        }.execute();
+    }
+
+    private void setupGUI() {
+        setTitle("Wikipedia Recommender");
+        setSize(500, 500);
+        setDefaultCloseOperation(EXIT_ON_CLOSE);
+        setLocationRelativeTo(null);
+
+        JPanel topPanel = new JPanel(new BorderLayout());
+        inputArea = new JTextArea();
+        findButton = new JButton("Find Similar");
+        findButton.setEnabled(false);
+        topPanel.add(new JLabel("Enter new page text:"), BorderLayout.NORTH);
+        topPanel.add(new JScrollPane(inputArea), BorderLayout.CENTER);
+        topPanel.add(findButton, BorderLayout.EAST);
+
+        resultsArea = new JTextArea();
+        resultsArea.setEditable(false);
+
+        add(topPanel, BorderLayout.NORTH);
+        add(new JScrollPane(resultsArea), BorderLayout.CENTER);
+
+        findButton.addActionListener(_ -> findSimilarPages());
+    }
+
+    private void findSimilarPages() {
+        String text = inputArea.getText().trim();
+        if (text.isEmpty()) {
+            resultsArea.setText("Please enter text.");
+            return;
+        }
+        // the engine cannot be interrupted mid-query, a cancelled one finishes but is never shown
+        if (search != null) search.cancel(true);
+        resultsArea.setText("Searching...");
+        search = new SwingWorker<>() {
+            @Override
+            protected QueryEngine.Answer doInBackground() {
+                return engine.similar(text, TOP_RESULTS, PROBES, GROUP_PROBES);
+            }
+
+            @Override
+            protected void done() {
+                // one that finished before a newer search could cancel it still runs done() afterwards
+                if (this != search || isCancelled()) return;
+                try {
+                    QueryEngine.Answer answer = get();
+                    displayResults(answer.probes(), answer.results());
+                } catch (InterruptedException | ExecutionException e) {
+                    resultsArea.setText("Search failed: " + e.getMessage());
+                }
+            }
+        };
+        search.execute();
+    }
+
+    private void displayResults(int[] probes, List<QueryEngine.Result> results) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Nearest Cluster: ").append(probes[0]);
+        if (probes.length > 1) sb.append(" (searched ").append(probes.length).append(" clusters)");
+        sb.append("\n\n");
+        sb.append("Most Similar Pages:\n\n");
+        for (int i = 0; i < results.size(); i++) {
+            QueryEngine.Result r = results.get(i);
+            sb.append((i + 1)).append(". ").append(r.page().pageTitle).append("\n");
+            sb.append("   Score: ").append(String.format("%.4f", r.score())).append("\n\n");
+        }
+        resultsArea.setText(sb.toString());
+    }
+}
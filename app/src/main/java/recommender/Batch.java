@@ -0,0 +1,109 @@
+package recommender;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Answers a file of queries without any GUI. Each line is page text, or @id for a page already
+ * in the snapshot. Queries run on a pool of worker threads and their results are written in
+ * input order as soon as they are ready, one tab separated line per result: line number, rank,
+ * page id, score, cluster, title and url. A query that fails writes "error" and the reason
+ * instead of a rank.
+ */
+class Batch {
+    static final String QUERIES = System.getProperty("batch.queries"); // standard input when unset
+    static final String OUT = System.getProperty("batch.out"); // standard output when unset
+    static final int THREADS = Integer.getInteger("batch.threads", Runtime.getRuntime().availableProcessors());
+    // queries waiting to be written per thread, bounds memory however long the input is
+    static final int QUEUED = 4;
+    static final int TOP_RESULTS = Config.positive("app.topK", 2);
+    static final int PROBES = Integer.getInteger("app.probes", 1);
+    static final int GROUP_PROBES = Integer.getInteger("app.groupProbes", 1);
+
+    public static void main() throws IOException, InterruptedException {
+        QueryEngine engine;
+        try {
+            engine = QueryEngine.load(Path.of("data/snapshot.bin"), Boolean.getBoolean("app.eager"));
+        } catch (IOException e) {
+            System.err.println("Could not load data/snapshot.bin, run Loader first: " + e.getMessage());
+            return;
+        }
+        long start = System.nanoTime();
+        int queries;
+        try (BufferedReader in = QUERIES == null
+                     ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                     : Files.newBufferedReader(Path.of(QUERIES));
+             PrintWriter out = OUT == null
+                     ? new PrintWriter(System.out, false, StandardCharsets.UTF_8)
+                     : new PrintWriter(Files.newBufferedWriter(Path.of(OUT)));
+             ExecutorService pool = Executors.newFixedThreadPool(THREADS)) {
+            queries = run(engine, in, out, pool);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("%d queries in %.2f s, %.0f queries/s on %d threads%n", queries, seconds,
+                queries / Math.max(seconds, 1e-9), THREADS);
+    }
+
+    // returns the number of queries; blank lines are skipped but still counted as lines
+    static int run(QueryEngine engine, BufferedReader in, PrintWriter out, ExecutorService pool)
+            throws IOException, InterruptedException {
+        ArrayDeque<Future<String>> pending = new ArrayDeque<>();
+        int line = 0, queries = 0;
+        for (String text; (text = in.readLine()) != null; ) {
+            int number = ++line;
+            if (text.isBlank()) continue;
+            queries++;
+            String query = text.trim();
+            pending.add(pool.submit(() -> answer(engine, number, query)));
+            if (pending.size() >= QUEUED * THREADS) out.print(await(pending.poll()));
+        }
+        while (!pending.isEmpty()) out.print(await(pending.poll()));
+        return queries;
+    }
+
+    static String answer(QueryEngine engine, int line, String query) {
+        StringBuilder sb = new StringBuilder();
+        try {
+            QueryEngine.Answer answer = query.startsWith("@")
+                    ? engine.similarTo(Integer.parseInt(query.substring(1).trim()), TOP_RESULTS, PROBES, GROUP_PROBES)
+                    : engine.similar(query, TOP_RESULTS, PROBES, GROUP_PROBES);
+            List<QueryEngine.Result> results = answer.results();
+            for (int i = 0; i < results.size(); i++) {
+                QueryEngine.Result r = results.get(i);
+                sb.append(line).append('\t').append(i + 1).append('\t').append(r.id()).append('\t')
+                        .append(String.format(Locale.ROOT, "%.4f", r.score())).append('\t').append(r.cluster())
+                        .append('\t').append(field(r.page().pageTitle)).append('\t').append(field(r.page().pageURL))
+                        .append('\n');
+            }
+        } catch (IllegalArgumentException e) { // unknown page id or not a number after @
+            sb.setLength(0);
+            sb.append(line).append("\terror\t").append(field(String.valueOf(e.getMessage()))).append('\n');
+        }
+        return sb.toString();
+    }
+
+    // keeps every result on one line with a fixed number of columns
+    private static String field(String s) {
+        return s.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    private static String await(Future<String> result) throws InterruptedException {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package recommender;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts of non-negative values, such as latencies in microseconds, in log-linear buckets:
+ * values below 8 are exact and every power of two above is split in 8, so a percentile is
+ * off by at most 1/8. Recording only increments counters, threads never block each other.
+ */
+class Histogram {
+    private static final int SUB_BUCKETS = 8;
+
+    private final AtomicLongArray counts = new AtomicLongArray(64 * SUB_BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    void record(long value) {
+        value = Math.max(0, value);
+        counts.incrementAndGet(bucket(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    static int bucket(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value); // at least 3
+        return (exponent - 2) * SUB_BUCKETS + (int) ((value >>> (exponent - 3)) & (SUB_BUCKETS - 1));
+    }
+
+    // smallest value that falls in the bucket
+    static long lowest(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int exponent = bucket / SUB_BUCKETS + 2;
+        return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - 3);
+    }
+
+    long count() {
+        return count.sum();
+    }
+
+    // highest value of the bucket holding the q-th quantile, never above the largest recorded value
+    long percentile(double q) {
+        long total = count.sum();
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(q * total)), seen = 0;
+        for (int b = 0; b < counts.length(); b++) {
+            seen += counts.get(b);
+            if (seen >= rank) return Math.min(b + 1 < counts.length() ? lowest(b + 1) - 1 : Long.MAX_VALUE, max.get());
+        }
+        return max.get();
+    }
+
+    // one line: count, mean and the usual percentiles, all in the recorded unit
+    String summary() {
+        long n = count.sum();
+        return String.format("count=%d mean=%.1f p50=%d p90=%d p99=%d p99.9=%d max=%d", n,
+                n == 0 ? 0.0 : (double) sum.sum() / n, percentile(0.5), percentile(0.9), percentile(0.99),
+                percentile(0.999), max.get());
+    }
+}
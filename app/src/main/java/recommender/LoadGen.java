@@ -0,0 +1,96 @@
+package recommender;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+class LoadGen {
+    // closed-loop load against a running Server: loadgen.concurrency virtual threads each send
+    // their next request as soon as the previous one is answered. Queries come from
+    // loadgen.queries in Batch's format (text, or @id), otherwise they are random page ids
+    static final String URL = System.getProperty("loadgen.url", "http://127.0.0.1:8080");
+    static final String QUERIES = System.getProperty("loadgen.queries");
+    static final int REQUESTS = Integer.getInteger("loadgen.requests", 20_000);
+    static final int WARMUP = Integer.getInteger("loadgen.warmup", 2_000);
+    static final int CONCURRENCY = Integer.getInteger("loadgen.concurrency", 64);
+    static final long SEED = Long.getLong("loadgen.seed", 42);
+
+    public static void main() throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+        List<URI> targets = targets(client);
+        if (targets.isEmpty()) {
+            System.err.println("No queries to send");
+            return;
+        }
+        System.out.printf("%d distinct queries, %d threads, %s%n", targets.size(), CONCURRENCY, URL);
+        run(client, targets, WARMUP, new Histogram(), new LongAdder());
+        Histogram latency = new Histogram();
+        LongAdder failed = new LongAdder();
+        long start = System.nanoTime();
+        run(client, targets, REQUESTS, latency, failed);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d requests in %.2f s, %.0f requests/s, %d failed%n", REQUESTS, seconds,
+                REQUESTS / Math.max(seconds, 1e-9), failed.sum());
+        System.out.println("latency_us " + latency.summary());
+        System.out.print(client.send(HttpRequest.newBuilder(URI.create(URL + "/metrics")).build(),
+                HttpResponse.BodyHandlers.ofString()).body());
+    }
+
+    static void run(HttpClient client, List<URI> targets, int requests, Histogram latency, LongAdder failed) {
+        AtomicInteger next = new AtomicInteger();
+        try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int t = 0; t < CONCURRENCY; t++) {
+                threads.submit(() -> {
+                    for (int i; (i = next.getAndIncrement()) < requests; ) {
+                        HttpRequest request = HttpRequest.newBuilder(targets.get(i % targets.size())).build();
+                        long sent = System.nanoTime();
+                        try {
+                            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                            if (status != 200) failed.increment();
+                        } catch (IOException e) {
+                            failed.increment();
+                        }
+                        latency.record((System.nanoTime() - sent) / 1000);
+                    }
+                    return null;
+                });
+            }
+        }
+    }
+
+    static List<URI> targets(HttpClient client) throws IOException, InterruptedException {
+        List<URI> targets = new ArrayList<>();
+        if (QUERIES != null) {
+            for (String line : Files.readAllLines(Path.of(QUERIES))) {
+                line = line.trim();
+                if (line.isEmpty()) continue;
+                targets.add(URI.create(URL + "/similar?" + (line.startsWith("@")
+                        ? "page=" + URLEncoder.encode(line.substring(1).trim(), StandardCharsets.UTF_8)
+                        : "text=" + URLEncoder.encode(line, StandardCharsets.UTF_8))));
+            }
+            return targets;
+        }
+        // the first line of /metrics is "pages <n>"
+        String metrics = client.send(HttpRequest.newBuilder(URI.create(URL + "/metrics")).build(),
+                HttpResponse.BodyHandlers.ofString()).body();
+        int pages = Integer.parseInt(metrics.lines().findFirst().orElseThrow().substring("pages ".length()));
+        Random random = new Random(SEED);
+        for (int i = 0; i < Math.min(pages, 10_000); i++) {
+            targets.add(URI.create(URL + "/similar?page=" + random.nextInt(pages)));
+        }
+        return targets;
+    }
+}
@@ -0,0 +1,295 @@
+package recommender;
+
+import javax.swing.*;
+import java.awt.*;
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+
+
+public class Main extends JFrame {
+    static final int TOP_RESULTS = Config.positive("app.topK", 2);//pages shown per search, as in Application
+    static final String URLS = System.getProperty("app.urls", "src/urls");//one url per line, read relative to the working directory unless absolute
+    private record WebPage(String title, HT tfidfScores, double norm) {}//stores tfidf, its magnitude & title for each url
+
+    private final List<WebPage> pages = new ArrayList<>();//list of tfidf & title for each url
+    private JComboBox<String> dropdown;
+    private JButton findButton;
+    private JProgressBar progress;
+    private JTextArea results;
+    private final CountDownLatch loaded = new CountDownLatch(1);//released once loadPages has updated the frame
+    private SwingWorker<String, Void> search;//the running findSimilar, replaced by the next one
+    private volatile CountDownLatch searched = new CountDownLatch(0);
+
+    private final HT wordInDoc = new HT();//# of urls a word appears in
+    private int totalDocs = 0;
+
+    public static void main() {
+        SwingUtilities.invokeLater(() -> new Main().setVisible(true));
+    }
+
+    public Main() {
+        setupUI();
+        loadPages();
+    }
+
+    public void setupUI() {
+        setTitle("Wikipedia Recommender");
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setSize(500, 300);
+        setLocationRelativeTo(null);
+
+        JPanel top = new JPanel();
+        dropdown = new JComboBox<>();
+        top.add(dropdown);
+
+        findButton = new JButton("Find Similar");
+        findButton.addActionListener(_ -> findSimilar());
+        findButton.setEnabled(false);//until the pages are loaded
+        top.add(findButton);
+        add(top, BorderLayout.NORTH);
+
+        results = new JTextArea();
+        results.setEditable(false);
+        add(results, BorderLayout.CENTER);
+
+        progress = new JProgressBar(0, 100);
+        progress.setStringPainted(true);
+        add(progress, BorderLayout.SOUTH);
+    }
+
+    //fetches and indexes the pages on a background thread; titles show up in the dropdown as they arrive
+    public void loadPages() {
+        results.setText(" Loading pages...");
+        SwingWorker<List<WebPage>, String> loader = new SwingWorker<>() {
+            @Override
+            protected List<WebPage> doInBackground() throws IOException {
+                List<HT> allWordCounts = new ArrayList<>(); //list of word counts for each page
+                List<String> wikiTitles = new ArrayList<>();
+
+                List<String> urls = new ArrayList<>();
+                try (BufferedReader reader = new BufferedReader(new FileReader(URLS))) {
+                    String url;
+                    while ((url = reader.readLine()) != null) {
+                        if (url.trim().isEmpty()) continue;
+                        urls.add(url.trim());
+                    }
+                }
+
+                //fetched with the loader's limits on concurrent requests, per host requests, timeout and retries;
+                //pages come back in file order and a failed url is reported and skipped
+                int[] done = {0};
+                new PageFetcher(Loader.FETCH_THREADS, Loader.FETCH_PER_HOST, Loader.FETCH_TIMEOUT,
+                        Loader.FETCH_RETRIES, null).fetchAll(urls, page -> {
+                    HT wordCounts = toHT(page.counts());
+                    allWordCounts.add(wordCounts);//store
+                    wikiTitles.add(page.title());
+                    totalDocs++;
+                    //# of articles each unique word appears in
+                    for (HT.Node bucket : wordCounts.table) {
+                        for (HT.Node node = bucket; node != null; node = node.next) {
+                            String word = (String) node.key;
+                            wordInDoc.add(word);
+                        }
+                    }
+                    publish(page.title());
+                    setProgress(100 * ++done[0] / urls.size());
+                });
+
+                //idf needs every page, so the scores are computed once all of them are in
+                List<WebPage> indexed = new ArrayList<>();
+                for (int i = 0; i < allWordCounts.size(); i++) {
+                    //for each article calculate its tfidf scores
+                    HT tfidfScores = calculateTFIDF(allWordCounts.get(i));
+                    indexed.add(new WebPage(wikiTitles.get(i), tfidfScores, magnitude(tfidfScores)));
+                }
+                return indexed;
+            }
+
+            @Override
+            protected void process(List<String> titles) {
+                if (isDone()) return;//done() adds whatever is still missing
+                for (String title : titles) dropdown.addItem(title);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    pages.addAll(get());
+                    for (int i = dropdown.getItemCount(); i < pages.size(); i++) dropdown.addItem(pages.get(i).title);
+                    findButton.setEnabled(true);
+                    results.setText(" Select page and click Find Similar");
+                } catch (ExecutionException e) {
+                    results.setText(e.getCause() instanceof IOException ? "Error reading urls file" : "Error loading pages");
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    remove(progress);
+                    revalidate();
+                    loaded.countDown();
+                }
+            }
+        };
+        loader.addPropertyChangeListener(e -> {
+            if (e.getPropertyName().equals("progress")) progress.setValue((Integer) e.getNewValue());
+        });
+        loader.execute();
+    }
+
+    //blocks until loadPages has finished and the frame shows its result
+    void awaitLoaded() throws InterruptedException {
+        loaded.await();
+    }
+
+    //PageFetcher counts with Similarity.countWords, which splits words the same way as countWords below
+    private static HT toHT(TermTable counts) {
+        HT wordCounts = new HT();
+        for (int i = 0; i < counts.keys.length; i++) {
+            if (counts.keys[i] == null) continue;
+            for (int n = 0; n < counts.counts[i]; n++) wordCounts.add(counts.keys[i]);
+        }
+        return wordCounts;
+    }
+
+    public HT countWords(String text) {
+        HT counts = new HT();
+        //one pass: words end at spaces, letters are lowercased, anything else is dropped
+        char[] word = new char[32];
+        int len = 0;
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (c == ' ') {
+                if (len > 0) counts.add(new String(word, 0, len));
+                len = 0;
+                continue;
+            }
+            c = Character.toLowerCase(c);
+            if (c < 'a' || c > 'z') continue;
+            if (len == word.length) word = Arrays.copyOf(word, len * 2);
+            word[len++] = c;
+        }
+        return counts;
+    }
+
+    public HT calculateTFIDF(HT wordCounts) {
+        HT tfidf = new HT();
+        int totalWords = 0;
+        for (HT.Node bucket : wordCounts.table) {//traverses array
+            for (HT.Node node = bucket; node != null; node = node.next) {//traverses linked list
+                totalWords = totalWords + node.count;
+            }
+        }
+        //tfidf for each word in the wiki
+        for (HT.Node bucket : wordCounts.table) {
+            for (HT.Node node = bucket; node != null; node = node.next) {
+                String word = (String) node.key;
+                int wordFreq =  node.count;
+                int docsWithWord = wordInDoc.getCount(word);
+                double tf = (double) wordFreq / totalWords;
+                double idf = Math.log((double) totalDocs / docsWithWord);
+                double tfidfScore = tf * idf;
+                tfidf.add(word, tfidfScore);//add word and its score to map
+            }
+        }
+        return tfidf;
+    }
+
+    //scores on a background thread; a newer search cancels the one still running
+    public void findSimilar() {
+        int selectedIdx = dropdown.getSelectedIndex();
+        if (selectedIdx < 0 || selectedIdx >= pages.size()) return;
+        WebPage selected = pages.get(selectedIdx);
+        if (search != null) search.cancel(true);
+        CountDownLatch shown = new CountDownLatch(1);
+        searched = shown;
+        search = new SwingWorker<>() {
+            @Override
+            protected String doInBackground() {
+                TopK top = similarTo(selectedIdx, TOP_RESULTS);
+                StringBuilder result = new StringBuilder();
+                result.append(" Most similar to \"").append(selected.title).append("\":\n\n");
+                for (int k = 0, n = top.sort(); k < n; k++) {
+                    if (k > 0) result.append("\n\n");
+                    result.append(String.format(" %d. %s\n Score: %.3f", k + 1, pages.get(top.ids[k]).title, top.scores[k]));
+                }
+                return String.valueOf(result);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    //a superseded search shows nothing, even one that finished before it could be cancelled
+                    if (this == search && !isCancelled()) results.setText(get());
+                } catch (InterruptedException | ExecutionException e) {
+                    results.setText(" Search failed");
+                } finally {
+                    shown.countDown();
+                }
+            }
+        };
+        search.execute();
+    }
+
+    //blocks until the latest findSimilar has shown its results
+    void awaitSearch() throws InterruptedException {
+        searched.await();
+    }
+
+    //k best pages for the page at index, no Swing involved; call sort() on the result for best first
+    TopK similarTo(int index, int k) {
+        WebPage selected = pages.get(index);
+        TopK top = new TopK(k);
+        for (int i = 0; i < pages.size(); i++) {
+            if (Thread.currentThread().isInterrupted()) break;//cancelled, the result is thrown away
+            if (i == index) continue; //dont compare page to itself
+            double score = similarity(selected, pages.get(i));
+            if (score > 0) top.offer(i, score);
+        }
+        return top;
+    }
+
+    public double similarity(HT tfidf1, HT tfidf2) {
+        double mag1 = magnitude(tfidf1);
+        double mag2 = magnitude(tfidf2);
+        if (mag1 == 0 || mag2 == 0) return 0;//zero div error
+        return dot(tfidf1, tfidf2) / (mag1 * mag2);//final formula
+    }
+
+    //same as above but reuses the magnitudes computed when the pages were loaded
+    private double similarity(WebPage page1, WebPage page2) {
+        if (page1.norm == 0 || page2.norm == 0) return 0;
+        return dot(page1.tfidfScores, page2.tfidfScores) / (page1.norm * page2.norm);
+    }
+
+    public double dot(HT tfidf1, HT tfidf2) {
+        double dot = 0;
+        //iterates through all the words in wiki tfidf
+        for (HT.Node bucket : tfidf1.table) {
+            for (HT.Node node = bucket; node != null; node = node.next) {
+                double score1 = (Double) node.value;
+                // get score for same word from second wiki
+                Double score2Obj = (Double) tfidf2.get(node.key);
+                //if the word doesnt exist in the second article, score2 = 0
+                double score2 = (score2Obj == null) ? 0 : score2Obj;
+                dot = dot + (score1 * score2);
+            }
+        }
+        return dot;
+    }
+
+    public double magnitude(HT tfidf) {
+        double mag = 0;
+        for (HT.Node bucket : tfidf.table) {
+            for (HT.Node node = bucket; node != null; node = node.next) {
+                double score = (Double) node.value;
+                mag = mag + (score * score);
+            }
+        }
+        return Math.sqrt(mag);
+    }
+}
\ No newline at end of file
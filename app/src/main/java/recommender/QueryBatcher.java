@@ -0,0 +1,101 @@
+package recommender;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs queries from any number of request threads on a fixed set of worker threads. Each
+ * worker takes whatever has queued up, up to maxBatch queries, and answers the batch in one
+ * go, so however many connections are open the engine is only ever busy on as many threads as
+ * there are workers, and a busy server pays for one queue hand-off per batch instead of per
+ * query. Identical queries in the same batch are answered once. At most capacity queries wait,
+ * past that answer refuses new ones rather than letting the queue and the latency grow.
+ */
+class QueryBatcher implements AutoCloseable {
+    // text is null for a query by page id
+    record Query(String text, int page, int k, int probes, int groupProbes) {}
+
+    private record Pending(Query query, CompletableFuture<QueryEngine.Answer> answer) {}
+
+    private final QueryEngine engine;
+    private final int maxBatch;
+    private final BlockingQueue<Pending> queue;
+    private final List<Thread> workers = new ArrayList<>();
+    final Histogram batchSizes = new Histogram();
+
+    QueryBatcher(QueryEngine engine, int threads, int maxBatch, int capacity) {
+        this.engine = engine;
+        this.maxBatch = Math.max(1, maxBatch);
+        this.queue = new LinkedBlockingQueue<>(capacity);
+        for (int t = 0; t < threads; t++) {
+            workers.add(Thread.ofPlatform().daemon().name("query-" + t).start(this::work));
+        }
+    }
+
+    // blocks the calling thread, a virtual one in the server, until the answer is ready;
+    // throws RejectedExecutionException straight away when capacity queries are already waiting
+    QueryEngine.Answer answer(Query query) throws InterruptedException {
+        CompletableFuture<QueryEngine.Answer> answer = new CompletableFuture<>();
+        if (!queue.offer(new Pending(query, answer))) {
+            throw new RejectedExecutionException(queue.size() + " queries already waiting");
+        }
+        try {
+            return answer.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException r) throw r;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    int queued() {
+        return queue.size();
+    }
+
+    private void work() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        try {
+            while (true) {
+                batch.add(queue.take());
+                try {
+                    queue.drainTo(batch, maxBatch - 1);
+                    batchSizes.record(batch.size());
+                    for (int i = 0; i < batch.size(); i++) {
+                        Pending p = batch.get(i);
+                        if (p.answer.isDone()) continue; // a duplicate, answered below
+                        try {
+                            QueryEngine.Answer answer = run(p.query);
+                            p.answer.complete(answer);
+                            for (int j = i + 1; j < batch.size(); j++) {
+                                if (batch.get(j).query.equals(p.query)) batch.get(j).answer.complete(answer);
+                            }
+                        } catch (Throwable e) { // errors too: the worker lives on and the caller gets a 500
+                            p.answer.completeExceptionally(e);
+                        }
+                    }
+                } catch (Throwable e) {
+                    // nobody waits forever on a batch that failed outside a query; answered ones are left as they are
+                    for (Pending p : batch) p.answer.completeExceptionally(e);
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            for (Pending p : batch) p.answer.cancel(false);
+        }
+    }
+
+    private QueryEngine.Answer run(Query q) {
+        return q.text == null
+                ? engine.similarTo(q.page, q.k, q.probes, q.groupProbes)
+                : engine.similar(q.text, q.k, q.probes, q.groupProbes);
+    }
+
+    @Override
+    public void close() {
+        workers.forEach(Thread::interrupt);
+    }
+}
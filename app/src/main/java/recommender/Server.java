@@ -0,0 +1,213 @@
+package recommender;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Recommendations over HTTP from one loaded snapshot. Every connection is handled on its own
+ * virtual thread and the queries are answered by a QueryBatcher; the engine is never written
+ * after loading, so requests share it without locks.
+ * <pre>
+ * GET  /similar?text=...          pages similar to the text
+ * POST /similar                   same, the text is the request body
+ * GET  /similar?page=12           pages similar to page 12 of the snapshot
+ *      &amp;k=5&amp;probes=2&amp;groupProbes=1  optional, app.* properties otherwise
+ * GET  /metrics                   request latencies in microseconds and batch sizes
+ * </pre>
+ * A request that finds server.queue queries already waiting is answered 503 at once.
+ */
+class Server {
+    static final String HOST = System.getProperty("server.host", "127.0.0.1");
+    static final int PORT = Integer.getInteger("server.port", 8080);
+    static final int WORKERS = Config.positive("server.workers", Runtime.getRuntime().availableProcessors());
+    static final int MAX_BATCH = Config.positive("server.maxBatch", 32);
+    static final int QUEUE = Config.positive("server.queue", 1024);
+    static final int TOP_RESULTS = Config.positive("app.topK", 2);
+    static final int PROBES = Config.positive("app.probes", 1);
+    static final int GROUP_PROBES = Config.positive("app.groupProbes", 1);
+
+    private final QueryEngine engine;
+    private final QueryBatcher batcher;
+    private final HttpServer http;
+    private final Histogram textLatency = new Histogram();
+    private final Histogram pageLatency = new Histogram();
+    private final LongAdder errors = new LongAdder();
+
+    Server(QueryEngine engine, InetSocketAddress address, int workers, int maxBatch, int queue)
+            throws IOException {
+        this.engine = engine;
+        this.batcher = new QueryBatcher(engine, workers, maxBatch, queue);
+        this.http = HttpServer.create(address, 0);
+        http.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        http.createContext("/similar", this::similar);
+        http.createContext("/metrics", this::metrics);
+    }
+
+    public static void main() throws IOException {
+        QueryEngine engine;
+        try {
+            engine = QueryEngine.load(Path.of("data/snapshot.bin"), Boolean.getBoolean("app.eager"));
+        } catch (IOException e) {
+            System.err.println("Could not load data/snapshot.bin, run Loader first: " + e.getMessage());
+            return;
+        }
+        Server server = new Server(engine, new InetSocketAddress(HOST, PORT), WORKERS, MAX_BATCH, QUEUE);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+        server.start();
+        System.out.printf("Serving %d pages on http://%s:%d/similar%n", engine.snapshot.pages.size(), HOST,
+                server.port());
+    }
+
+    void start() {
+        http.start();
+    }
+
+    void stop() {
+        http.stop(1);
+        batcher.close();
+    }
+
+    int port() {
+        return http.getAddress().getPort();
+    }
+
+    private void similar(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        String method = exchange.getRequestMethod();
+        if (!method.equals("GET") && !method.equals("POST")) {
+            send(exchange, 405, "{\"error\":\"GET or POST\"}");
+            return;
+        }
+        boolean byPage = false;
+        try {
+            Map<String, String> params = params(exchange.getRequestURI().getRawQuery());
+            String text = method.equals("POST")
+                    ? new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8)
+                    : params.get("text");
+            int page = -1;
+            if (text == null) {
+                if (!params.containsKey("page")) throw new IllegalArgumentException("text or page is required");
+                page = Integer.parseInt(params.get("page"));
+                byPage = true;
+            }
+            QueryBatcher.Query query = new QueryBatcher.Query(text, page, intParam(params, "k", TOP_RESULTS),
+                    intParam(params, "probes", PROBES), intParam(params, "groupProbes", GROUP_PROBES));
+            send(exchange, 200, json(batcher.answer(query)));
+            (byPage ? pageLatency : textLatency).record((System.nanoTime() - start) / 1000);
+        } catch (IllegalArgumentException e) {
+            errors.increment();
+            // a page id that parsed but is not in the snapshot, anything else is a malformed request
+            int status = byPage && !(e instanceof NumberFormatException) ? 404 : 400;
+            send(exchange, status, "{\"error\":" + quote(String.valueOf(e.getMessage())) + "}");
+        } catch (RejectedExecutionException e) {
+            errors.increment();
+            send(exchange, 503, "{\"error\":\"too many queries waiting\"}");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            send(exchange, 503, "{\"error\":\"shutting down\"}");
+        } catch (RuntimeException e) {
+            // a query cancelled by stop, or a bug in the engine; the connection still gets an answer
+            errors.increment();
+            send(exchange, 500, "{\"error\":" + quote(String.valueOf(e)) + "}");
+        }
+    }
+
+    private void metrics(HttpExchange exchange) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("pages ").append(engine.snapshot.pages.size()).append('\n');
+        sb.append("clusters ").append(engine.snapshot.centroids.length).append('\n');
+        sb.append("text_us ").append(textLatency.summary()).append('\n');
+        sb.append("page_us ").append(pageLatency.summary()).append('\n');
+        sb.append("errors ").append(errors.sum()).append('\n');
+        sb.append("batch_size ").append(batcher.batchSizes.summary()).append('\n');
+        sb.append("queued ").append(batcher.queued()).append('\n');
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    static String json(QueryEngine.Answer answer) {
+        StringBuilder sb = new StringBuilder("{\"probes\":[");
+        for (int i = 0; i < answer.probes().length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(answer.probes()[i]);
+        }
+        sb.append("],\"results\":[");
+        List<QueryEngine.Result> results = answer.results();
+        for (int i = 0; i < results.size(); i++) {
+            QueryEngine.Result r = results.get(i);
+            if (i > 0) sb.append(',');
+            sb.append("{\"id\":").append(r.id())
+                    .append(",\"title\":").append(quote(r.page().pageTitle))
+                    .append(",\"url\":").append(quote(r.page().pageURL))
+                    .append(",\"score\":").append(String.format(Locale.ROOT, "%.6f", r.score()))
+                    .append(",\"cluster\":").append(r.cluster()).append('}');
+        }
+        return sb.append("]}").toString();
+    }
+
+    static String quote(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    static Map<String, String> params(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null) return params;
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq <= 0) continue;
+            params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static int intParam(Map<String, String> params, String name, int fallback) {
+        String value = params.get(name);
+        if (value == null) return fallback;
+        int n = Integer.parseInt(value);
+        if (n < 1) throw new NumberFormatException(name + " must be positive");
+        return n;
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package recommender;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HistogramTest {
+    @Test
+    public void smallValuesHaveTheirOwnBucket() {
+        for (int v = 0; v < 8; v++) {
+            assertEquals(v, Histogram.bucket(v));
+            assertEquals(v, Histogram.lowest(v));
+        }
+    }
+
+    @Test
+    public void eachPowerOfTwoSplitsInEight() {
+        assertEquals(8, Histogram.bucket(8));
+        assertEquals(15, Histogram.bucket(15));
+        assertEquals(16, Histogram.bucket(16));
+        assertEquals(16, Histogram.bucket(17)); // 16 and 17 share a bucket, two values wide
+        assertEquals(17, Histogram.bucket(18));
+        assertEquals(24, Histogram.bucket(32));
+        assertEquals(23, Histogram.bucket(31));
+    }
+
+    @Test
+    public void valuesFallBetweenTheirBucketAndTheNext() {
+        for (long v = 0; v < 100_000; v++) assertBucketHolds(v);
+        for (int shift = 3; shift < 62; shift++) {
+            long power = 1L << shift;
+            assertBucketHolds(power - 1);
+            assertBucketHolds(power);
+            assertBucketHolds(power + 1);
+            assertEquals(power, Histogram.lowest(Histogram.bucket(power)));
+        }
+    }
+
+    private static void assertBucketHolds(long v) {
+        int b = Histogram.bucket(v);
+        assertTrue(v + " below bucket " + b, Histogram.lowest(b) <= v);
+        assertTrue(v + " above bucket " + b, v < Histogram.lowest(b + 1));
+    }
+
+    @Test
+    public void emptyHistogramReportsZero() {
+        Histogram h = new Histogram();
+        assertEquals(0, h.percentile(0.5));
+        assertEquals(0, h.percentile(1.0));
+        assertEquals(0, h.count());
+    }
+
+    @Test
+    public void percentilesAreExactBelowEight() {
+        Histogram h = new Histogram();
+        for (int v = 1; v <= 7; v++) h.record(v);
+        assertEquals(1, h.percentile(0.0));
+        assertEquals(4, h.percentile(0.5));
+        assertEquals(7, h.percentile(1.0));
+    }
+
+    @Test
+    public void percentilesAreWithinAnEighth() {
+        Histogram h = new Histogram();
+        for (int v = 1; v <= 1000; v++) h.record(v);
+        for (double q : new double[]{0.01, 0.1, 0.5, 0.9, 0.99, 0.999, 1.0}) {
+            long exact = (long) Math.ceil(q * 1000), p = h.percentile(q);
+            assertTrue(q + ": " + p + " < " + exact, p >= exact);
+            assertTrue(q + ": " + p + " > " + exact, p <= exact + exact / 8);
+        }
+    }
+
+    @Test
+    public void percentileNeverExceedsTheLargestValue() {
+        Histogram h = new Histogram();
+        h.record(1000); // its bucket runs up to 1023
+        assertEquals(1000, h.percentile(0.5));
+        assertEquals(1000, h.percentile(1.0));
+    }
+
+    @Test
+    public void negativeValuesCountAsZero() {
+        Histogram h = new Histogram();
+        h.record(-5);
+        assertEquals(1, h.count());
+        assertEquals(0, h.percentile(1.0));
+    }
+}
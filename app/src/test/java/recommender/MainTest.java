@@ -1,3 +1,5 @@
+package recommender;
+
 import org.junit.Test;
 import static org.junit.Assert.*;
 import java.util.List;
@@ -16,17 +18,23 @@ public class MainTest {
         f.setAccessible(true);
         return type.cast(f.get(m));
     }
+    //pages load in the background, wait until the frame shows them
+    private Main loadedMain() throws InterruptedException {
+        Main main = new Main();
+        main.awaitLoaded();
+        return main;
+    }
     //write to urlfile for test cases
     private void writeUrlsFile(String content) throws IOException {
-        File urlsFile = new File("src/urls");
-        urlsFile.getParentFile().mkdirs();
+        File urlsFile = new File(Main.URLS);
+        if (urlsFile.getParentFile() != null) urlsFile.getParentFile().mkdirs();
         try (FileWriter writer = new FileWriter(urlsFile)) {
             writer.write(content);
         }
     }
     //for L3 test case
     private void deleteUrlsFile() {
-        File urlsFile = new File("src/urls");
+        File urlsFile = new File(Main.URLS);
         if (urlsFile.exists()) {
             urlsFile.delete();
         }
@@ -39,7 +47,7 @@ public class MainTest {
                 "https://en.wikipedia.org/wiki/JUnit\n" +
                 "https://en.wikipedia.org/wiki/Regression_testing");
         
-        Main main = new Main();
+        Main main = loadedMain();
         JComboBox<String> dropdown = getField(main, "dropdown", JComboBox.class);
         List<?> pages = getField(main, "pages", List.class);
         JTextArea results = getField(main,"results",JTextArea.class);
@@ -52,7 +60,7 @@ public class MainTest {
     //empty url file test
     public void L2() throws Exception {
         writeUrlsFile("");
-        Main main = new Main();
+        Main main = loadedMain();
         JComboBox<String> dropdown = getField(main, "dropdown", JComboBox.class);
         List<?> pages = getField(main, "pages", List.class);
         JTextArea results = getField(main,"results",JTextArea.class);
@@ -65,7 +73,7 @@ public class MainTest {
     //no url file present
     public void L3() throws Exception {
         deleteUrlsFile();
-        Main main = new Main();
+        Main main = loadedMain();
         JComboBox<String> dropdown = getField(main, "dropdown", JComboBox.class);
         List<?> pages = getField(main, "pages", List.class);
         JTextArea results = getField(main,"results",JTextArea.class);
@@ -87,7 +95,7 @@ public class MainTest {
         PrintStream origErr = System.err;
         System.setErr(new PrintStream(result));
 
-        Main main = new Main();
+        Main main = loadedMain();
         JComboBox<String> dropdown = getField(main, "dropdown", JComboBox.class);
         List<?> pages = getField(main, "pages", List.class);
         assertEquals(2, dropdown.getItemCount());
@@ -165,7 +173,7 @@ public class MainTest {
             "https://en.wikipedia.org/wiki/JUnit\n" +
             "https://en.wikipedia.org/wiki/Regression_testing\n");
 
-        Main main = new Main();
+        Main main = loadedMain();
         JComboBox<String> dropdown = getField(main, "dropdown", JComboBox.class);
         List<?> pages = getField(main, "pages", List.class);
         JTextArea results = getField(main,"results",JTextArea.class);
@@ -174,6 +182,7 @@ public class MainTest {
         String selectedTitle = (String)dropdown.getSelectedItem();
 
         main.findSimilar();
+        main.awaitSearch();
 
         String out = results.getText();
         //recommended does not select itself
@@ -184,7 +193,7 @@ public class MainTest {
     //arrange: only one URL
         writeUrlsFile("https://en.wikipedia.org/wiki/JUnit\n");
 
-        Main main = new Main();
+        Main main = loadedMain();
 
         JComboBox<String> dropdown = getField(main, "dropdown", JComboBox.class);
         JTextArea results = getField(main, "results", JTextArea.class);
@@ -198,6 +207,7 @@ public class MainTest {
         dropdown.setSelectedIndex(0);
 
         main.findSimilar();
+        main.awaitSearch();
 
         String out = results.getText();
 
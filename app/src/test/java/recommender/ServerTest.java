@@ -0,0 +1,75 @@
+package recommender;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.*;
+
+public class ServerTest {
+    @Test
+    public void paramsAreDecoded() {
+        Map<String, String> params = Server.params("text=caf%C3%A9+au%20lait&k=5&page=a%3Db");
+        assertEquals("caf\u00e9 au lait", params.get("text"));
+        assertEquals("5", params.get("k"));
+        assertEquals("a=b", params.get("page"));
+        assertEquals(3, params.size());
+    }
+
+    @Test
+    public void paramsWithoutNameOrValueSeparatorAreSkipped() {
+        Map<String, String> params = Server.params("flag&=x&k=&probes=2=3");
+        assertFalse(params.containsKey("flag"));
+        assertFalse(params.containsKey(""));
+        assertEquals("", params.get("k"));
+        assertEquals("2=3", params.get("probes")); // only the first = splits
+        assertTrue(Server.params(null).isEmpty());
+        assertTrue(Server.params("").isEmpty());
+    }
+
+    @Test
+    public void quoteEscapesJsonSpecials() {
+        assertEquals("\"\"", Server.quote(""));
+        assertEquals("\"say \\\"hi\\\"\"", Server.quote("say \"hi\""));
+        assertEquals("\"a\\\\b\"", Server.quote("a\\b"));
+        assertEquals("\"\\n\\r\\t\"", Server.quote("\n\r\t"));
+        assertEquals("\"\\u0001\\u001f\"", Server.quote("\u0001\u001f"));
+        assertEquals("\"caf\u00e9/\u00e9\"", Server.quote("caf\u00e9/\u00e9")); // non-ASCII is sent as UTF-8
+    }
+
+    @Test
+    public void jsonListsProbesThenResults() {
+        QueryEngine.Answer answer = new QueryEngine.Answer(new int[]{3, 1}, List.of(
+                new QueryEngine.Result(7, new WebData("http://a/?q=\"x\"", "First\ttitle", null), 0.5, 3),
+                new QueryEngine.Result(2, new WebData("http://b/", "Second", null), 0.123456789, 1)));
+        assertEquals("{\"probes\":[3,1],\"results\":["
+                + "{\"id\":7,\"title\":\"First\\ttitle\",\"url\":\"http://a/?q=\\\"x\\\"\",\"score\":0.500000,\"cluster\":3},"
+                + "{\"id\":2,\"title\":\"Second\",\"url\":\"http://b/\",\"score\":0.123457,\"cluster\":1}]}",
+                Server.json(answer));
+    }
+
+    @Test
+    public void jsonOfNoResults() {
+        assertEquals("{\"probes\":[],\"results\":[]}", Server.json(new QueryEngine.Answer(new int[0], List.of())));
+    }
+
+    @Test
+    public void fullQueueRefusesQueries() throws Exception {
+        // no workers, so the first query stays queued
+        try (QueryBatcher batcher = new QueryBatcher(null, 0, 4, 1)) {
+            QueryBatcher.Query query = new QueryBatcher.Query("text", -1, 2, 1, 1);
+            Thread waiting = Thread.ofVirtual().start(() -> {
+                try {
+                    batcher.answer(query);
+                } catch (InterruptedException _) {
+                }
+            });
+            while (batcher.queued() == 0) Thread.sleep(1);
+            assertThrows(RejectedExecutionException.class, () -> batcher.answer(query));
+            waiting.interrupt();
+            waiting.join();
+        }
+    }
+}
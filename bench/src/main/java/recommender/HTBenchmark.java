@@ -0,0 +1,124 @@
+package recommender;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// HT.add into an empty table (resizes included), HT.get of present and absent words, one HT.resize
+// of a table at the 0.75 load factor; the same adds and gets on TermTable, the table the engine
+// counts words in, next to them, add(char[], len) being the tokenizer's path
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HTBenchmark {
+    @Param({"1000", "100000"})
+    public int words;
+    @Param({"1.0"})
+    public double skew;
+
+    private String[] stream; // words as they come from pages, repeats included
+    private String[] probes;
+    private char[][] chars; // the stream as the tokenizer hands words over
+    private HT filled;
+    private TermTable filledTerms;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticCorpus corpus = new SyntheticCorpus(words, skew, 1, 42);
+        stream = new String[words * 4];
+        for (int i = 0; i < stream.length; i++) stream[i] = corpus.word();
+        filled = new HT();
+        for (String word : stream) filled.add(word);
+        chars = new char[stream.length][];
+        for (int i = 0; i < stream.length; i++) chars[i] = stream[i].toCharArray();
+        filledTerms = new TermTable();
+        for (String word : stream) filledTerms.add(word);
+        probes = new String[1024];
+        for (int i = 0; i < probes.length; i++) probes[i] = i % 4 == 0 ? "absent" + i : corpus.word();
+    }
+
+    @Benchmark
+    public int add() {
+        HT table = new HT();
+        for (String word : stream) table.add(word);
+        return table.size;
+    }
+
+    @Benchmark
+    public void get(Blackhole bh) {
+        for (String word : probes) bh.consume(filled.get(word));
+    }
+
+    @Benchmark
+    public int termTableAdd() {
+        TermTable table = new TermTable();
+        for (String word : stream) table.add(word);
+        return table.size;
+    }
+
+    @Benchmark
+    public int termTableAddChars() {
+        TermTable table = new TermTable();
+        for (char[] word : chars) table.add(word, word.length);
+        return table.size;
+    }
+
+    @Benchmark
+    public void termTableGet(Blackhole bh) {
+        for (String word : probes) bh.consume(filledTerms.getCount(word));
+    }
+
+    // a table holding exactly as many words as the load factor allows, rebuilt before every resize
+    // and only for it, so add and get are timed without the rebuild
+    @State(Scope.Thread)
+    public static class Full {
+        private String[] words;
+        private int capacity;
+        HT table;
+
+        @Setup(Level.Trial)
+        public void setUp(HTBenchmark bench) {
+            // the largest table the distinct words can fill to 0.75
+            capacity = Integer.highestOneBit(Math.max(8, bench.filled.size * 4 / 3));
+            words = new String[capacity / 4 * 3];
+            int n = 0;
+            for (HT.Node node : bench.filled.nodes()) {
+                if (n == words.length) break;
+                words[n++] = (String) node.key;
+            }
+        }
+
+        @Setup(Level.Invocation)
+        public void fill() {
+            // linked the way add links them, add itself would resize on the last word
+            table = new HT();
+            table.table = new HT.Node[capacity];
+            for (String word : words) {
+                int i = word.hashCode() & (capacity - 1);
+                table.table[i] = new HT.Node(word, table.table[i]);
+            }
+            table.size = words.length;
+        }
+    }
+
+    @Benchmark
+    public int resize(Full full) {
+        full.table.resize();
+        return full.table.table.length;
+    }
+}
@@ -0,0 +1,59 @@
+package recommender;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+// one exhaustive k-means round: assign every page, then a full centroid update pass
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class KMeansBenchmark {
+    @Param({"10000"})
+    public int pages;
+    @Param({"7", "64"})
+    public int k;
+    @Param({"300"})
+    public int words;
+
+    private KMeans kmeans;
+    private List<WebData> indexed;
+    private SparseVector[] centroids;
+    private int[] assignments;
+
+    @Setup
+    public void setUp() {
+        SyntheticCorpus.Indexed corpus = new SyntheticCorpus(50_000, 1.0, k, 42).index(pages, words);
+        indexed = corpus.pages();
+        kmeans = new KMeans(corpus.tfidfCalc().dictionary().size(), 1, 1, 42, true, true, UnaryOperator.identity());
+        centroids = kmeans.seeds(indexed, k, new Random(42));
+        assignments = new int[pages];
+        kmeans.assign(indexed, centroids, assignments);
+        kmeans.update(indexed, centroids, null, assignments.clone(), assignments);
+    }
+
+    @Benchmark
+    public int iteration() {
+        SparseVector[] round = centroids.clone();
+        int[] next = assignments.clone();
+        kmeans.assign(indexed, round, next);
+        kmeans.update(indexed, round, null, assignments, next);
+        return next[0];
+    }
+}
@@ -0,0 +1,56 @@
+package recommender;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+// Application's query end to end: TF-IDF of the text, routing, index scoring and top-K
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class QueryBenchmark {
+    @Param({"10000", "100000"})
+    public int pages;
+    @Param({"1", "3"})
+    public int probes;
+    @Param({"50"})
+    public int queryWords;
+
+    private QueryEngine engine;
+    private List<String> queries;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        SyntheticCorpus corpus = new SyntheticCorpus(50_000, 1.0, 16, 42);
+        SyntheticCorpus.Indexed indexed = corpus.index(pages, 300);
+        KMeans.Result result = new KMeans(indexed.tfidfCalc().dictionary().size(), 100, 1, 42, true, false,
+                UnaryOperator.identity()).cluster(indexed.pages(), 7);
+        int[] clusters = InvertedIndex.groupByCluster(indexed.pages(), result.assignments(), result.centroids().length);
+        InvertedIndex index = new InvertedIndex(indexed.pages(), indexed.tfidfCalc().dictionary().size());
+        engine = new QueryEngine(new Snapshot(indexed.pages(), clusters, result.centroids(), new SparseVector[0],
+                new int[0], indexed.tfidfCalc(), index, false));
+        queries = corpus.texts(1024, queryWords);
+    }
+
+    @Benchmark
+    public void similar(Blackhole bh) {
+        bh.consume(engine.similar(queries.get(next++ & 1023), 10, probes, 1));
+    }
+}
@@ -0,0 +1,60 @@
+package recommender;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Similarity.cosineSimilarity between two page vectors, unit and not
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SimilarityBenchmark {
+    @Param({"100", "1000"})
+    public int words;
+    @Param({"20000"})
+    public int vocabulary;
+    @Param({"1.0"})
+    public double skew;
+
+    private SparseVector[] unit;
+    private SparseVector[] raw;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        SyntheticCorpus.Indexed indexed = new SyntheticCorpus(vocabulary, skew, 8, 42).index(1024, words);
+        List<WebData> pages = indexed.pages();
+        unit = new SparseVector[pages.size()];
+        raw = new SparseVector[pages.size()];
+        for (int p = 0; p < pages.size(); p++) {
+            unit[p] = pages.get(p).tfidfVector;
+            raw[p] = indexed.tfidfCalc().computeTfidf(indexed.counts().get(p), false);
+        }
+    }
+
+    @Benchmark
+    public double cosineUnit() {
+        int i = next++ & 1023;
+        return Similarity.cosineSimilarity(unit[i], unit[(i * 31 + 7) & 1023]);
+    }
+
+    @Benchmark
+    public double cosineRaw() {
+        int i = next++ & 1023;
+        return Similarity.cosineSimilarity(raw[i], raw[(i * 31 + 7) & 1023]);
+    }
+}
@@ -0,0 +1,92 @@
+package recommender;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Reproducible page texts for the benchmarks. Words are drawn from a vocabulary of the given
+ * size with Zipf frequencies (skew 0 is uniform, around 1 is natural language); each page has
+ * one of a few topics, which rotates the ranks so topics favour different words and k-means
+ * has something to find. Words are letters only, so the tokenizer keeps every one of them.
+ */
+final class SyntheticCorpus {
+    private final String[] vocabulary;
+    private final double[] cumulative;
+    private final int topics;
+    private final Random random;
+
+    SyntheticCorpus(int vocabularySize, double skew, int topics, long seed) {
+        this.vocabulary = new String[vocabularySize];
+        for (int i = 0; i < vocabularySize; i++) vocabulary[i] = word(i);
+        this.cumulative = new double[vocabularySize];
+        double total = 0;
+        for (int rank = 0; rank < vocabularySize; rank++) {
+            total += 1 / Math.pow(rank + 1, skew);
+            cumulative[rank] = total;
+        }
+        for (int rank = 0; rank < vocabularySize; rank++) cumulative[rank] /= total;
+        this.topics = topics;
+        this.random = new Random(seed);
+    }
+
+    // "wa", "wb", ... "wz", "wba", ...: distinct lowercase words
+    private static String word(int i) {
+        StringBuilder sb = new StringBuilder("w");
+        do {
+            sb.append((char) ('a' + i % 26));
+            i /= 26;
+        } while (i > 0);
+        return sb.toString();
+    }
+
+    String word() {
+        return vocabulary[rank()];
+    }
+
+    private int rank() {
+        int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+        return Math.min(rank < 0 ? -rank - 1 : rank, vocabulary.length - 1);
+    }
+
+    String text(int words) {
+        int shift = random.nextInt(topics) * (vocabulary.length / topics);
+        StringBuilder sb = new StringBuilder(words * 6);
+        for (int w = 0; w < words; w++) {
+            if (w > 0) sb.append(' ');
+            sb.append(vocabulary[(rank() + shift) % vocabulary.length]);
+        }
+        return sb.toString();
+    }
+
+    List<String> texts(int pages, int words) {
+        List<String> texts = new ArrayList<>(pages);
+        for (int p = 0; p < pages; p++) texts.add(text(words));
+        return texts;
+    }
+
+    // the pages as Loader sees them after step 2: word counts, document counts, unit TF-IDF vectors
+    record Indexed(List<TermTable> counts, TfidfCalculator tfidfCalc, List<WebData> pages) {}
+
+    Indexed index(int pages, int words) {
+        List<TermTable> counts = new ArrayList<>(pages);
+        TermTable wordDocCount = new TermTable();
+        TermDictionary dictionary = new TermDictionary();
+        for (String text : texts(pages, words)) {
+            TermTable pageCounts = Similarity.countWords(text);
+            counts.add(pageCounts);
+            for (String word : pageCounts.keys) {
+                if (word == null) continue;
+                wordDocCount.add(word);
+                dictionary.add(word);
+            }
+        }
+        TfidfCalculator tfidfCalc = new TfidfCalculator(wordDocCount, dictionary, pages);
+        List<WebData> indexed = new ArrayList<>(pages);
+        for (int p = 0; p < pages; p++) {
+            indexed.add(new WebData("page:" + p, "Page " + p, tfidfCalc.computeTfidf(counts.get(p), true)));
+        }
+        return new Indexed(counts, tfidfCalc, indexed);
+    }
+}
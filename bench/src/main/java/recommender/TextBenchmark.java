@@ -0,0 +1,54 @@
+package recommender;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Similarity.countWords over a page text, and TfidfCalculator.computeTfidf over its counts
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TextBenchmark {
+    @Param({"1000", "10000"})
+    public int pages;
+    @Param({"500"})
+    public int words;
+    @Param({"20000"})
+    public int vocabulary;
+    @Param({"0.5", "1.1"})
+    public double skew;
+
+    private List<String> texts;
+    private SyntheticCorpus.Indexed indexed;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        texts = new SyntheticCorpus(vocabulary, skew, 8, 42).texts(pages, words);
+        indexed = new SyntheticCorpus(vocabulary, skew, 8, 42).index(pages, words);
+    }
+
+    @Benchmark
+    public int countWords() {
+        return Similarity.countWords(texts.get(next++ % pages)).size;
+    }
+
+    @Benchmark
+    public int computeTfidf() {
+        return indexed.tfidfCalc().computeTfidf(indexed.counts().get(next++ % pages), true).size();
+    }
+}
@@ -0,0 +1,127 @@
+package recommender;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Hamerly's bounds for the k-means assignment step. Each page keeps an upper bound on the
+ * distance to its own centroid and a lower bound on the distance to every other one; when the
+ * centroids move the bounds are loosened by how far they moved, and a page whose upper bound
+ * stays below the lower bound provably keeps its cluster without computing any similarity.
+ * Distances are Euclidean between unit vectors, sqrt(2 - 2 cos), so the nearest centroid is
+ * still the most similar one and the result is the same as comparing against every centroid.
+ */
+class AssignmentBounds {
+    private static final double SLACK = 1e-9; // rounding in the bounds, near ties are recomputed
+
+    private final List<WebData> pages;
+    private final double[] upper;
+    private final double[] lower;
+    private SparseVector[] last; // the centroids the bounds refer to, null before the first pass
+    final LongAdder computed = new LongAdder();
+    final LongAdder skipped = new LongAdder();
+
+    AssignmentBounds(List<WebData> pages) {
+        this.pages = pages;
+        this.upper = new double[pages.size()];
+        this.lower = new double[pages.size()];
+    }
+
+    // assigns every page to its nearest centroid, returns how many changed cluster
+    int assign(SparseVector[] centroids, int[] assignments, boolean parallel) {
+        int k = centroids.length;
+        double[] drift = new double[k];
+        double[] half = new double[k]; // half the distance to the closest other centroid
+        if (last != null) {
+            for (int c = 0; c < k; c++) drift[c] = moved(last[c], centroids[c]);
+        }
+        separation(centroids, half);
+        // the lower bound covers every other centroid, so it drops by the largest move among them
+        double[] othersMoved = new double[k];
+        int far = 0;
+        for (int c = 1; c < k; c++) if (drift[c] > drift[far]) far = c;
+        double runnerUp = 0;
+        for (int c = 0; c < k; c++) if (c != far) runnerUp = Math.max(runnerUp, drift[c]);
+        for (int c = 0; c < k; c++) othersMoved[c] = c == far ? runnerUp : drift[far];
+        boolean first = last == null;
+        last = centroids.clone();
+
+        IntStream range = IntStream.range(0, pages.size());
+        if (parallel) range = range.parallel();
+        return range.map(i -> {
+            SparseVector page = pages.get(i).tfidfVector;
+            int own = assignments[i];
+            double ownSim = Double.NaN;
+            if (!first) {
+                double u = upper[i] + drift[own];
+                double l = lower[i] - othersMoved[own];
+                double bound = Math.max(half[own], l) - SLACK;
+                if (u < bound) {
+                    upper[i] = u;
+                    lower[i] = l;
+                    skipped.add(k);
+                    return 0;
+                }
+                ownSim = Similarity.unitSimilarity(page, centroids[own]);
+                computed.increment();
+                u = distance(ownSim);
+                if (u < bound) {
+                    upper[i] = u;
+                    lower[i] = l;
+                    skipped.add(k - 1);
+                    return 0;
+                }
+            }
+            // same order and tie-break as KMeans.nearestCentroid
+            int best = 0;
+            double bestSim = -1, secondSim = -1;
+            for (int c = 0; c < k; c++) {
+                double sim = c == own && !Double.isNaN(ownSim) ? ownSim : Similarity.unitSimilarity(page, centroids[c]);
+                if (sim > bestSim) {
+                    secondSim = bestSim;
+                    bestSim = sim;
+                    best = c;
+                } else if (sim > secondSim) {
+                    secondSim = sim;
+                }
+            }
+            computed.add(Double.isNaN(ownSim) ? k : k - 1);
+            upper[i] = distance(bestSim);
+            lower[i] = k > 1 ? distance(secondSim) : Double.POSITIVE_INFINITY;
+            if (own == best) return 0;
+            assignments[i] = best;
+            return 1;
+        }).sum();
+    }
+
+    // fills in half the distance from each centroid to its closest neighbour, 0 when unknown
+    private void separation(SparseVector[] centroids, double[] half) {
+        Arrays.fill(half, Double.POSITIVE_INFINITY);
+        for (int a = 0; a < centroids.length; a++) {
+            for (int b = a + 1; b < centroids.length; b++) {
+                double d = 0; // an empty centroid is not a unit vector, the test is skipped for it
+                if (centroids[a].isUnit() && centroids[b].isUnit()) {
+                    d = distance(Similarity.unitSimilarity(centroids[a], centroids[b]));
+                    computed.increment();
+                }
+                half[a] = Math.min(half[a], d / 2);
+                half[b] = Math.min(half[b], d / 2);
+            }
+        }
+        for (int c = 0; c < half.length; c++) if (half[c] == Double.POSITIVE_INFINITY) half[c] = 0;
+    }
+
+    // how far a centroid moved; refresh() keeps unchanged centroids as the same object
+    private double moved(SparseVector from, SparseVector to) {
+        if (from == to) return 0;
+        if (!from.isUnit() || !to.isUnit()) return Double.POSITIVE_INFINITY;
+        computed.increment();
+        return distance(Similarity.unitSimilarity(from, to));
+    }
+
+    private static double distance(double similarity) {
+        return Math.sqrt(Math.max(0, 2 - 2 * similarity));
+    }
+}
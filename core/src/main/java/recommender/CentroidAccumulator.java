@@ -0,0 +1,131 @@
+package recommender;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.UnaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * Running per-cluster sums of the raw TF-IDF weights, one dense array per cluster indexed
+ * by term id. The first pass sums every page once; after that only the pages that changed
+ * cluster are moved, so an update costs the moved pages instead of corpus size times K.
+ */
+class CentroidAccumulator {
+    private static final double EPSILON = 1e-12; // what add-then-subtract leaves behind
+    final double[][] sums;
+    final int[] members;
+    private final boolean[] dirty;
+    private final int terms;
+
+    CentroidAccumulator(int k, int terms) {
+        this.sums = new double[k][];
+        this.members = new int[k];
+        this.dirty = new boolean[k];
+        this.terms = terms;
+    }
+
+    // a chunk's sum for one cluster, only the terms its pages use
+    private record Partial(int[] termIds, double[] weights, int members) {}
+
+    // one pass over all pages; when parallel the pages are cut into one chunk per worker, each
+    // chunk sums its own pages, and the partials are then added into the per-cluster arrays
+    static CentroidAccumulator build(List<WebData> pages, int[] assignments, int k, int terms, boolean parallel) {
+        CentroidAccumulator total = new CentroidAccumulator(k, terms);
+        if (parallel) {
+            int chunks = Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism(), assignments.length));
+            Partial[][] partials = new Partial[chunks][];
+            IntStream.range(0, chunks).parallel().forEach(t -> partials[t] = sum(pages, assignments, k, terms,
+                    (int) ((long) assignments.length * t / chunks), (int) ((long) assignments.length * (t + 1) / chunks)));
+            // whole clusters per task, so no two tasks write the same array
+            IntStream.range(0, k).parallel().forEach(c -> {
+                for (Partial[] chunk : partials) {
+                    Partial p = chunk[c];
+                    if (p == null) continue;
+                    if (total.sums[c] == null) total.sums[c] = new double[terms];
+                    double[] sum = total.sums[c];
+                    for (int j = 0; j < p.termIds.length; j++) sum[p.termIds[j]] += p.weights[j];
+                    total.members[c] += p.members;
+                }
+            });
+        } else {
+            for (int i = 0; i < assignments.length; i++) total.add(pages.get(i).tfidfVector, assignments[i], 1);
+        }
+        Arrays.fill(total.dirty, true); // clusters left empty are rebuilt too
+        return total;
+    }
+
+    // pages [from, to) summed per cluster through one dense scratch array, so a chunk holds
+    // terms doubles of its own however many clusters it touches
+    private static Partial[] sum(List<WebData> pages, int[] assignments, int k, int terms, int from, int to) {
+        // the chunk's page indexes ordered by cluster, cluster c holding [first[c], first[c + 1])
+        int[] first = new int[k + 1];
+        for (int i = from; i < to; i++) first[assignments[i] + 1]++;
+        for (int c = 0; c < k; c++) first[c + 1] += first[c];
+        int[] order = new int[to - from];
+        int[] next = Arrays.copyOf(first, k);
+        for (int i = from; i < to; i++) order[next[assignments[i]]++] = i;
+
+        Partial[] partials = new Partial[k];
+        double[] scratch = new double[terms];
+        boolean[] seen = new boolean[terms];
+        int[] touched = new int[16];
+        for (int c = 0; c < k; c++) {
+            if (first[c] == first[c + 1]) continue;
+            int n = 0;
+            for (int j = first[c]; j < first[c + 1]; j++) {
+                SparseVector v = pages.get(order[j]).tfidfVector;
+                for (int x = 0; x < v.termIds.length; x++) {
+                    int id = v.termIds[x];
+                    if (!seen[id]) {
+                        seen[id] = true;
+                        if (n == touched.length) touched = Arrays.copyOf(touched, n * 2);
+                        touched[n++] = id;
+                    }
+                    scratch[id] += v.weights[x] * v.scale;
+                }
+            }
+            int[] ids = Arrays.copyOf(touched, n);
+            double[] weights = new double[n];
+            for (int x = 0; x < n; x++) {
+                weights[x] = scratch[ids[x]];
+                scratch[ids[x]] = 0;
+                seen[ids[x]] = false;
+            }
+            partials[c] = new Partial(ids, weights, first[c + 1] - first[c]);
+        }
+        return partials;
+    }
+
+    void add(SparseVector vector, int cluster, int sign) {
+        if (sums[cluster] == null) sums[cluster] = new double[terms];
+        double[] sum = sums[cluster];
+        double w = sign * vector.scale; // unit vectors are scaled back to their raw weights
+        for (int k = 0; k < vector.termIds.length; k++) sum[vector.termIds[k]] += vector.weights[k] * w;
+        members[cluster] += sign;
+        dirty[cluster] = true;
+    }
+
+    void move(SparseVector vector, int from, int to) {
+        add(vector, from, -1);
+        add(vector, to, 1);
+    }
+
+    // rebuilds the centroids whose members changed since the last call, returns how many
+    int refresh(SparseVector[] centroids, UnaryOperator<SparseVector> prune) {
+        int rebuilt = 0;
+        for (int c = 0; c < sums.length; c++) {
+            if (!dirty[c]) continue;
+            dirty[c] = false;
+            rebuilt++;
+            if (members[c] == 0) {
+                sums[c] = null; // drop the rounding leftovers with the last member
+                centroids[c] = new SparseVector(new int[0], new double[0]);
+                continue;
+            }
+            // the sum points the same way as the mean, and centroids are unit vectors anyway
+            centroids[c] = prune.apply(SparseVector.fromDense(sums[c], EPSILON).normalized());
+        }
+        return rebuilt;
+    }
+}
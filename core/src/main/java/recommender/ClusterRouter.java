@@ -0,0 +1,40 @@
+package recommender;
+
+import java.util.Arrays;
+
+/**
+ * Picks the clusters a query is searched in, IVF style: the probes clusters whose centroids
+ * are most similar to it. With a two-level clustering the query is first matched against the
+ * group centroids and only the clusters of the best groups are compared.
+ */
+class ClusterRouter {
+    private final SparseVector[] centroids;
+    private final SparseVector[] groups;
+    private final int[] parents;
+
+    ClusterRouter(SparseVector[] centroids, SparseVector[] groups, int[] parents) {
+        this.centroids = centroids;
+        this.groups = groups;
+        this.parents = parents;
+    }
+
+    ClusterRouter(Snapshot snapshot) {
+        this(snapshot.centroids, snapshot.groups, snapshot.parents);
+    }
+
+    // the clusters to search, most similar first
+    int[] route(SparseVector query, int probes, int groupProbes) {
+        boolean[] open = null;
+        if (groups.length > 0) {
+            TopK best = new TopK(Math.max(1, Math.min(groupProbes, groups.length)));
+            for (int g = 0; g < groups.length; g++) best.offer(g, Similarity.unitSimilarity(query, groups[g]));
+            open = new boolean[groups.length];
+            for (int k = 0; k < best.size; k++) open[best.ids[k]] = true;
+        }
+        TopK best = new TopK(Math.max(1, Math.min(probes, centroids.length)));
+        for (int c = 0; c < centroids.length; c++) {
+            if (open == null || open[parents[c]]) best.offer(c, Similarity.unitSimilarity(query, centroids[c]));
+        }
+        return Arrays.copyOf(best.ids, best.sort());
+    }
+}
@@ -0,0 +1,21 @@
+package recommender;
+
+/**
+ * Reads the integer system properties that size things, rejecting values a run cannot use.
+ * Integer.getInteger on its own takes 0 or -3 as readily as 7, and the mistake only shows up
+ * later as an exception far from the setting or as a run that silently does nothing.
+ */
+final class Config {
+    private Config() {
+    }
+
+    static int positive(String property, int fallback) {
+        return atLeast(property, fallback, 1);
+    }
+
+    static int atLeast(String property, int fallback, int min) {
+        int value = Integer.getInteger(property, fallback);
+        if (value < min) throw new IllegalArgumentException(property + " must be at least " + min + ", was " + value);
+        return value;
+    }
+}
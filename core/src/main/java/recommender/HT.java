@@ -1,3 +1,5 @@
+package recommender;
+
 import java.io.*;
 import java.util.ArrayList;
 import java.util.List;
@@ -0,0 +1,282 @@
+package recommender;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Term id -> postings of (page index, weight), stored CSR style: the postings of term t are
+ * {@code pageIds[offsets[t] .. offsets[t + 1])}, in increasing page order. Scoring a query
+ * only walks the postings of its own terms. The arrays sit behind memory segments so a
+ * snapshot can hand over views of a mapped file, of any size, instead of copies.
+ */
+class InvertedIndex {
+    final MemorySegment offsets; // terms + 1 ints
+    final MemorySegment pageIds;
+    final MemorySegment weights;
+    final int terms;
+    private final ValueLayout.OfInt ints; // native order for arrays, the file's order for a mapping
+    private final ValueLayout.OfDouble doubles;
+    final InvertedIndex next; // postings of pages appended later, may be null
+
+    InvertedIndex(List<WebData> pages, int terms) {
+        this(pages, terms, 0);
+    }
+
+    // page ids in the postings start at firstPage
+    InvertedIndex(List<WebData> pages, int terms, int firstPage) {
+        this(postings(pages, terms, firstPage));
+    }
+
+    private record Postings(int[] offsets, int[] pageIds, double[] weights) {}
+
+    private static Postings postings(List<WebData> pages, int terms, int firstPage) {
+        int[] offsets = new int[terms + 1];
+        for (WebData page : pages) {
+            for (int id : page.tfidfVector.termIds) offsets[id + 1]++;
+        }
+        for (int t = 0; t < terms; t++) offsets[t + 1] += offsets[t];
+        int[] pageIds = new int[offsets[terms]];
+        double[] weights = new double[offsets[terms]];
+        int[] next = Arrays.copyOf(offsets, terms);
+        for (int p = 0; p < pages.size(); p++) {
+            SparseVector vector = pages.get(p).tfidfVector;
+            for (int k = 0; k < vector.termIds.length; k++) {
+                int at = next[vector.termIds[k]]++;
+                pageIds[at] = firstPage + p;
+                weights[at] = vector.weights[k];
+            }
+        }
+        return new Postings(offsets, pageIds, weights);
+    }
+
+    private InvertedIndex(Postings postings) {
+        this(postings.offsets, postings.pageIds, postings.weights);
+    }
+
+    InvertedIndex(int[] offsets, int[] pageIds, double[] weights) {
+        this(MemorySegment.ofArray(offsets), MemorySegment.ofArray(pageIds), MemorySegment.ofArray(weights),
+                ValueLayout.JAVA_INT, ValueLayout.JAVA_DOUBLE, null);
+    }
+
+    InvertedIndex(MemorySegment offsets, MemorySegment pageIds, MemorySegment weights, ValueLayout.OfInt ints,
+                  ValueLayout.OfDouble doubles) {
+        this(offsets, pageIds, weights, ints, doubles, null);
+    }
+
+    private InvertedIndex(MemorySegment offsets, MemorySegment pageIds, MemorySegment weights, ValueLayout.OfInt ints,
+                          ValueLayout.OfDouble doubles, InvertedIndex next) {
+        this.offsets = offsets;
+        this.pageIds = pageIds;
+        this.weights = weights;
+        this.terms = (int) (offsets.byteSize() / 4) - 1;
+        this.ints = ints;
+        this.doubles = doubles;
+        this.next = next;
+    }
+
+    // first posting of a term, offset(terms) is the number of postings
+    int offset(int term) {
+        return offsets.getAtIndex(ints, term);
+    }
+
+    int page(int at) {
+        return pageIds.getAtIndex(ints, at);
+    }
+
+    double weight(int at) {
+        return weights.getAtIndex(doubles, at);
+    }
+
+    // the same postings in heap arrays, for an index that must outlive the mapping it was read from
+    InvertedIndex copy() {
+        int[] offsets = new int[terms + 1];
+        int[] pageIds = new int[offset(terms)];
+        double[] weights = new double[pageIds.length];
+        MemorySegment.copy(this.offsets, ints, 0, offsets, 0, offsets.length);
+        MemorySegment.copy(this.pageIds, ints, 0, pageIds, 0, pageIds.length);
+        MemorySegment.copy(this.weights, doubles, 0, weights, 0, weights.length);
+        InvertedIndex copy = new InvertedIndex(offsets, pageIds, weights);
+        return next == null ? copy : copy.with(next.copy());
+    }
+
+    // this index followed by the postings of more pages
+    InvertedIndex with(InvertedIndex more) {
+        return new InvertedIndex(offsets, pageIds, weights, ints, doubles, next == null ? more : next.with(more));
+    }
+
+    record Hits(int[] pages, double[] scores) {}
+
+    /**
+     * Where each cluster's pages sit: pages [0, grouped) are sorted by cluster, cluster c
+     * holding [first[c], first[c + 1]), so its postings of a term are one run found by binary
+     * search. Pages from grouped on, appended through the journal, are checked one by one.
+     */
+    record Layout(int[] first, int grouped) {
+        // the longest prefix of pages in cluster order, removed pages (-1) do not break it
+        static Layout of(int[] clusters, int k) {
+            int[] first = new int[k + 1];
+            int last = 0, i = 0;
+            for (; i < clusters.length; i++) {
+                int c = clusters[i];
+                if (c < 0) continue;
+                if (c < last) break;
+                while (last < c) first[++last] = i;
+            }
+            while (last < k) first[++last] = i;
+            return new Layout(first, i);
+        }
+    }
+
+    // pages of a cluster get consecutive ids, so each term's postings are grouped by cluster too;
+    // reorders pages in place and returns their clusters in the new order
+    static int[] groupByCluster(List<WebData> pages, int[] clusters, int k) {
+        int[] first = new int[k + 1];
+        for (int cluster : clusters) first[cluster + 1]++;
+        for (int c = 0; c < k; c++) first[c + 1] += first[c];
+        WebData[] sorted = new WebData[pages.size()];
+        int[] sortedClusters = new int[clusters.length];
+        for (int i = 0; i < clusters.length; i++) {
+            int at = first[clusters[i]]++;
+            sorted[at] = pages.get(i);
+            sortedClusters[at] = clusters[i];
+        }
+        for (int i = 0; i < sorted.length; i++) pages.set(i, sorted[i]);
+        return sortedClusters;
+    }
+
+    // dot product of the query with every page sharing a term with it, restricted to
+    // pages with clusters[p] == cluster unless cluster is negative; removed pages (cluster -1)
+    // never score
+    Hits score(SparseVector query, int[] clusters, int cluster) {
+        return score(query, clusters, cluster, null);
+    }
+
+    // with term frequency postings, idf weighs them and scores are divided by the page norm
+    Hits score(SparseVector query, int[] clusters, int cluster, QueryTimeIdf idf) {
+        Accumulator acc = new Accumulator(postings(query));
+        for (InvertedIndex part = this; part != null; part = part.next) {
+            for (int q = 0; q < query.termIds.length; q++) {
+                int id = query.termIds[q];
+                if (id >= part.terms) continue;
+                double weight = idf == null ? query.weights[q] : query.weights[q] * idf.idf(id);
+                for (int at = part.offset(id), end = part.offset(id + 1); at < end; at++) {
+                    int page = part.page(at);
+                    if (clusters[page] < 0 || (cluster >= 0 && clusters[page] != cluster)) continue;
+                    acc.add(page, weight * part.weight(at));
+                }
+            }
+        }
+        return acc.hits(idf);
+    }
+
+    // scores only the pages of the probed clusters, walking just their runs of each posting list
+    Hits score(SparseVector query, int[] clusters, int[] probes, Layout layout, QueryTimeIdf idf) {
+        boolean[] probed = new boolean[layout.first.length - 1];
+        for (int c : probes) probed[c] = true;
+        // the probed runs are a small share of the postings, so the table grows with the hits instead
+        Accumulator acc = new Accumulator(64);
+        for (InvertedIndex part = this; part != null; part = part.next) {
+            for (int q = 0; q < query.termIds.length; q++) {
+                int id = query.termIds[q];
+                if (id >= part.terms) continue;
+                double weight = idf == null ? query.weights[q] : query.weights[q] * idf.idf(id);
+                int from = part.offset(id), end = part.offset(id + 1);
+                for (int c : probes) {
+                    int stop = part.firstAtLeast(layout.first[c + 1], from, end);
+                    for (int at = part.firstAtLeast(layout.first[c], from, end); at < stop; at++) {
+                        int page = part.page(at);
+                        if (clusters[page] >= 0) acc.add(page, weight * part.weight(at));
+                    }
+                }
+                for (int at = part.firstAtLeast(layout.grouped, from, end); at < end; at++) {
+                    int page = part.page(at);
+                    if (clusters[page] >= 0 && probed[clusters[page]]) acc.add(page, weight * part.weight(at));
+                }
+            }
+        }
+        return acc.hits(idf);
+    }
+
+    // first position in [from, end) whose page id is at least page
+    private int firstAtLeast(int page, int from, int end) {
+        while (from < end) {
+            int mid = (from + end) >>> 1;
+            if (page(mid) < page) from = mid + 1;
+            else end = mid;
+        }
+        return from;
+    }
+
+    // upper bound on the pages a query can reach, to size the accumulator
+    private int postings(SparseVector query) {
+        int postings = 0;
+        for (InvertedIndex part = this; part != null; part = part.next) {
+            for (int id : query.termIds) {
+                if (id < part.terms) postings += part.offset(id + 1) - part.offset(id);
+            }
+        }
+        return postings;
+    }
+
+    // page -> partial score in a local int keyed table, doubled whenever it is half full
+    private static final class Accumulator {
+        private int[] keys;
+        private double[] acc;
+        private int hits = 0;
+
+        Accumulator(int postings) {
+            int cap = Integer.highestOneBit(Math.max(postings, 4) * 2 - 1) << 1;
+            keys = new int[cap];
+            acc = new double[cap];
+            Arrays.fill(keys, -1);
+        }
+
+        void add(int page, double score) {
+            int i = slot(keys, page);
+            if (keys[i] == -1) {
+                if ((hits + 1) * 2 > keys.length) {
+                    grow();
+                    i = slot(keys, page);
+                }
+                keys[i] = page;
+                hits++;
+            }
+            acc[i] += score;
+        }
+
+        private static int slot(int[] keys, int page) {
+            int mask = keys.length - 1;
+            int i = (page * 0x9E3779B9) & mask;
+            while (keys[i] != -1 && keys[i] != page) i = (i + 1) & mask;
+            return i;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            double[] oldAcc = acc;
+            keys = new int[oldKeys.length * 2];
+            acc = new double[keys.length];
+            Arrays.fill(keys, -1);
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldKeys[j] == -1) continue;
+                int i = slot(keys, oldKeys[j]);
+                keys[i] = oldKeys[j];
+                acc[i] = oldAcc[j];
+            }
+        }
+
+        Hits hits(QueryTimeIdf idf) {
+            int[] pages = new int[hits];
+            double[] scores = new double[hits];
+            for (int i = 0, k = 0; i < keys.length; i++) {
+                if (keys[i] == -1) continue;
+                pages[k] = keys[i];
+                double norm = idf == null ? 1.0 : idf.norm(keys[i]);
+                scores[k++] = norm == 0.0 ? 0.0 : acc[i] / norm;
+            }
+            return new Hits(pages, scores);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package recommender;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Append-only log of the changes made to a snapshot since it was written, kept next to it
+ * as {@code <snapshot>.log}. Pages added or removed by an incremental update go here instead
+ * of rewriting the snapshot; readers replay the log on top of it. Records:
+ * <pre>
+ * 'T' term                      a word first seen in an added page, gets the next term id
+ * 'P' url, title, cluster, vec  an added page, gets the next page id
+ * 'R' page id                   a removed page, its cluster becomes -1
+ * </pre>
+ * Added pages are weighted with the document frequencies current when they were added;
+ * existing pages keep their weights until the next full rewrite. Snapshots holding raw term
+ * frequencies never go stale, the document counts replayed here are all they need.
+ */
+class Journal implements AutoCloseable {
+    private final DataOutputStream out;
+
+    Journal(Path snapshot) throws IOException {
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(logOf(snapshot).toFile(), true)));
+    }
+
+    static Path logOf(Path snapshot) {
+        return snapshot.resolveSibling(snapshot.getFileName() + ".log");
+    }
+
+    void term(String term) throws IOException {
+        out.writeByte('T');
+        out.writeUTF(term);
+    }
+
+    void page(WebData page, int cluster) throws IOException {
+        SparseVector v = page.tfidfVector;
+        out.writeByte('P');
+        out.writeUTF(page.pageURL);
+        out.writeUTF(page.pageTitle);
+        out.writeInt(cluster);
+        out.writeDouble(v.norm);
+        out.writeDouble(v.scale);
+        out.writeInt(v.size());
+        for (int id : v.termIds) out.writeInt(id);
+        for (double w : v.weights) out.writeDouble(w);
+    }
+
+    void removed(int pageId) throws IOException {
+        out.writeByte('R');
+        out.writeInt(pageId);
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    // the snapshot with the log applied, or the snapshot itself when there is no log;
+    // the base's dictionary and document counts are updated in place
+    static Snapshot replay(Path file, Snapshot base) throws IOException {
+        Path log = logOf(file);
+        if (!Files.exists(log)) return base;
+        TermDictionary dictionary = base.tfidfCalc.dictionary();
+        TermTable wordDocCount = base.tfidfCalc.wordDocCount();
+        int totalDocs = base.tfidfCalc.totalDocs();
+        int pageCount = base.pages.size();
+        List<WebData> added = new ArrayList<>();
+        List<Integer> addedClusters = new ArrayList<>();
+        List<Integer> removed = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(log)))) {
+            while (true) {
+                int type;
+                try {
+                    type = in.readByte();
+                } catch (EOFException e) {
+                    break;
+                }
+                switch (type) {
+                    case 'T' -> dictionary.add(in.readUTF());
+                    case 'P' -> {
+                        String url = in.readUTF(), title = in.readUTF();
+                        addedClusters.add(in.readInt());
+                        double norm = in.readDouble(), scale = in.readDouble();
+                        int n = in.readInt();
+                        int[] ids = new int[n];
+                        double[] weights = new double[n];
+                        for (int i = 0; i < n; i++) ids[i] = in.readInt();
+                        for (int i = 0; i < n; i++) weights[i] = in.readDouble();
+                        added.add(new WebData(url, title, new SparseVector(ids, weights, norm, scale)));
+                        for (int id : ids) wordDocCount.add(dictionary.term(id));
+                        totalDocs++;
+                    }
+                    case 'R' -> {
+                        int id = in.readInt();
+                        WebData page = id < pageCount ? base.pages.get(id) : added.get(id - pageCount);
+                        for (int termId : page.tfidfVector.termIds) wordDocCount.add(dictionary.term(termId), -1);
+                        totalDocs--;
+                        removed.add(id);
+                    }
+                    default -> throw new IOException("Corrupt journal " + log);
+                }
+            }
+        }
+        int[] clusters = Arrays.copyOf(base.clusters, pageCount + added.size());
+        for (int i = 0; i < addedClusters.size(); i++) clusters[pageCount + i] = addedClusters.get(i);
+        for (int id : removed) clusters[id] = -1;
+        List<WebData> pages = new AbstractList<>() {
+            @Override
+            public WebData get(int i) {
+                return i < pageCount ? base.pages.get(i) : added.get(i - pageCount);
+            }
+
+            @Override
+            public int size() {
+                return pageCount + added.size();
+            }
+        };
+        InvertedIndex index = added.isEmpty() ? base.index
+                : base.index.with(new InvertedIndex(added, dictionary.size(), pageCount));
+        return new Snapshot(pages, clusters, base.centroids, base.groups, base.parents,
+                new TfidfCalculator(wordDocCount, dictionary, totalDocs), index, added.size() + removed.size(), base.rawTf);
+    }
+}
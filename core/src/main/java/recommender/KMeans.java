@@ -0,0 +1,154 @@
+package recommender;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.UnaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * Spherical k-means over unit TF-IDF page vectors: k-means++ seeds, Hamerly's bounds in the
+ * assignment step unless exhaustive, and centroid sums that only move the pages that changed
+ * cluster. With several restarts the run with the lowest inertia is kept.
+ */
+class KMeans {
+    private final int terms; // dictionary size, the length of the centroid sums
+    private final int maxIterations;
+    private final int restarts;
+    private final long seed; // run r is seeded with seed + r
+    private final boolean parallel;
+    private final boolean exhaustive;
+    private final UnaryOperator<SparseVector> prune; // applied to every refreshed centroid
+
+    KMeans(int terms, int maxIterations, int restarts, long seed, boolean parallel, boolean exhaustive,
+           UnaryOperator<SparseVector> prune) {
+        this.terms = terms;
+        this.maxIterations = maxIterations;
+        this.restarts = restarts;
+        this.seed = seed;
+        this.parallel = parallel;
+        this.exhaustive = exhaustive;
+        this.prune = prune;
+    }
+
+    record Result(int[] assignments, SparseVector[] centroids) {}
+
+    // runs k-means restarts times from different seeds, in parallel unless sequential, and keeps the tightest run
+    Result cluster(List<WebData> pages, int k) {
+        Result[] results = new Result[restarts];
+        double[] inertia = new double[restarts];
+        IntStream runs = IntStream.range(0, restarts);
+        if (parallel) runs = runs.parallel();
+        runs.forEach(run -> {
+            SparseVector[] centroids = seeds(pages, k, new Random(seed + run));
+            results[run] = cluster(pages, centroids, new int[pages.size()], maxIterations);
+            inertia[run] = inertia(pages, results[run]);
+        });
+        int best = 0;
+        for (int run = 0; run < restarts; run++) {
+            if (restarts > 1) System.out.printf("Run %d (seed %d): inertia %.4f%n", run, seed + run, inertia[run]);
+            if (inertia[run] < inertia[best]) best = run;
+        }
+        return results[best];
+    }
+
+    Result cluster(List<WebData> pages, SparseVector[] centroids, int[] assignments,
+                   int maxIterations) {
+        int[] previous = new int[pages.size()];
+        CentroidAccumulator sums = null;
+        AssignmentBounds bounds = exhaustive ? null : new AssignmentBounds(pages);
+        for (int iter = 0; iter < maxIterations; iter++) {
+            System.arraycopy(assignments, 0, previous, 0, assignments.length);
+            boolean moved = bounds == null
+                    ? assign(pages, centroids, assignments)
+                    : bounds.assign(centroids, assignments, parallel) > 0;
+            if (!moved) {
+                System.out.println("Converged at iteration " + (iter + 1));
+                break;
+            }
+            sums = update(pages, centroids, sums, previous, assignments);
+        }
+        if (bounds != null) {
+            long computed = bounds.computed.sum(), skipped = bounds.skipped.sum();
+            System.out.printf("Similarities: %d computed, %d skipped (%.1f%%)%n", computed, skipped,
+                    computed + skipped == 0 ? 0.0 : 100.0 * skipped / (computed + skipped));
+        }
+        return new Result(assignments, centroids);
+    }
+
+    // k-means++: each next seed is a page drawn with probability proportional to its distance
+    // to the closest seed so far, 1 - cosine, which is half the squared distance between unit vectors
+    SparseVector[] seeds(List<WebData> pages, int k, Random random) {
+        SparseVector[] centroids = new SparseVector[k];
+        double[] distance = new double[pages.size()];
+        Arrays.fill(distance, Double.POSITIVE_INFINITY);
+        int next = random.nextInt(pages.size());
+        for (int c = 0; ; c++) {
+            SparseVector seed = pages.get(next).tfidfVector;
+            centroids[c] = seed;
+            if (c + 1 == k) return centroids;
+            IntStream range = IntStream.range(0, pages.size());
+            if (parallel) range = range.parallel();
+            range.forEach(i -> distance[i] = Math.min(distance[i],
+                    Math.max(0, 1 - Similarity.unitSimilarity(pages.get(i).tfidfVector, seed))));
+            double total = 0;
+            for (double d : distance) total += d;
+            if (total <= 0) { // every page is already a seed's duplicate
+                next = random.nextInt(pages.size());
+                continue;
+            }
+            double target = random.nextDouble() * total;
+            next = 0;
+            while (next < distance.length - 1 && (target -= distance[next]) >= 0) next++;
+        }
+    }
+
+    boolean assign(List<WebData> pages, SparseVector[] centroids, int[] assignments) {
+        IntStream range = IntStream.range(0, pages.size());
+        if (parallel) range = range.parallel();
+        // each page writes only its own slot, the number of moves is summed instead of a shared flag
+        int moved = range.map(i -> {
+            int bestCluster = nearestCentroid(pages.get(i).tfidfVector, centroids);
+            if (assignments[i] == bestCluster) return 0;
+            assignments[i] = bestCluster;
+            return 1;
+        }).sum();
+        return moved > 0;
+    }
+
+    static int nearestCentroid(SparseVector vector, SparseVector[] centroids) {
+        int bestCluster = 0;
+        double bestSim = -1;
+        for (int j = 0; j < centroids.length; j++) {
+            double sim = Similarity.unitSimilarity(vector, centroids[j]);
+            if (sim > bestSim) {
+                bestSim = sim;
+                bestCluster = j;
+            }
+        }
+        return bestCluster;
+    }
+
+    // full pass the first time, afterwards only the pages that changed cluster are moved
+    CentroidAccumulator update(List<WebData> pages, SparseVector[] centroids, CentroidAccumulator sums,
+                               int[] previous, int[] assignments) {
+        if (sums == null) {
+            sums = CentroidAccumulator.build(pages, assignments, centroids.length, terms, parallel);
+        } else {
+            for (int i = 0; i < assignments.length; i++) {
+                if (previous[i] != assignments[i]) sums.move(pages.get(i).tfidfVector, previous[i], assignments[i]);
+            }
+        }
+        sums.refresh(centroids, prune);
+        return sums;
+    }
+
+    // sum over pages of 1 - cosine to their centroid, lower means tighter clusters
+    static double inertia(List<WebData> pages, Result result) {
+        double sum = 0;
+        for (int i = 0; i < pages.size(); i++) {
+            sum += 1 - Similarity.unitSimilarity(pages.get(i).tfidfVector, result.centroids()[result.assignments()[i]]);
+        }
+        return sum;
+    }
+}
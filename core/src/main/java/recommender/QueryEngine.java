@@ -0,0 +1,67 @@
+package recommender;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The query side of a loaded snapshot without any Swing: routes a text, or a page already in
+ * the snapshot, to its nearest clusters and returns the best scoring pages in them. Nothing is
+ * written after construction, so one engine can answer queries from several threads.
+ */
+class QueryEngine {
+    final Snapshot snapshot;
+    private final ClusterRouter router;
+    private final InvertedIndex.Layout layout;
+    private final QueryTimeIdf queryTimeIdf; // only for snapshots that store term frequencies
+
+    QueryEngine(Snapshot snapshot) {
+        this.snapshot = snapshot;
+        this.router = new ClusterRouter(snapshot);
+        this.layout = InvertedIndex.Layout.of(snapshot.clusters, snapshot.centroids.length);
+        this.queryTimeIdf = snapshot.rawTf ? new QueryTimeIdf(snapshot.tfidfCalc, snapshot.pages) : null;
+    }
+
+    // pages stay in the mapped file unless eager
+    static QueryEngine load(Path file, boolean eager) throws IOException {
+        return new QueryEngine(eager ? Snapshot.read(file) : Snapshot.map(file));
+    }
+
+    // id: the page's index in snapshot.pages
+    record Result(int id, WebData page, double score, int cluster) {}
+
+    // probes: the clusters searched, nearest first
+    record Answer(int[] probes, List<Result> results) {}
+
+    Answer similar(String text, int k, int probes, int groupProbes) {
+        return search(snapshot.tfidfCalc.computeTfidfForText(text), k, probes, groupProbes, -1);
+    }
+
+    // the pages most like page id, the page itself left out
+    Answer similarTo(int id, int k, int probes, int groupProbes) {
+        if (id < 0 || id >= snapshot.pages.size() || snapshot.clusters[id] < 0) {
+            throw new IllegalArgumentException("No page " + id);
+        }
+        SparseVector tfidfVector = snapshot.pages.get(id).tfidfVector;
+        if (snapshot.rawTf) tfidfVector = snapshot.tfidfCalc.weigh(tfidfVector, true);
+        return search(tfidfVector, k, probes, groupProbes, id);
+    }
+
+    private Answer search(SparseVector tfidfVector, int k, int probes, int groupProbes, int exclude) {
+        int[] searched = router.route(tfidfVector, probes, groupProbes);
+        // only pages sharing a word with the query can score above zero
+        InvertedIndex.Hits hits = snapshot.index.score(tfidfVector, snapshot.clusters, searched, layout, queryTimeIdf);
+        // never more slots than hits, however large a k the caller asks for
+        TopK top = new TopK(Math.min(k, hits.pages().length));
+        for (int i = 0; i < hits.pages().length; i++) {
+            if (hits.pages()[i] != exclude) top.offer(hits.pages()[i], hits.scores()[i]);
+        }
+        List<Result> results = new ArrayList<>();
+        for (int i = 0, n = top.sort(); i < n; i++) {
+            int id = top.ids[i];
+            results.add(new Result(id, snapshot.pages.get(id), top.scores[i], snapshot.clusters[id]));
+        }
+        return new Answer(searched, results);
+    }
+}
@@ -0,0 +1,50 @@
+package recommender;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Scoring weights for snapshots whose pages store plain term frequencies. The IDF array is
+ * built from the document counts when the snapshot is opened, and a page's TF-IDF norm is
+ * computed the first time the page scores, then cached. Call {@link #refresh} after the
+ * document counts change; cached norms are then recomputed as pages are touched again.
+ */
+class QueryTimeIdf {
+    private final TfidfCalculator tfidfCalc;
+    private final List<WebData> pages;
+    private volatile double[] idf;
+    private volatile double[] norms; // NaN until first needed
+
+    QueryTimeIdf(TfidfCalculator tfidfCalc, List<WebData> pages) {
+        this.tfidfCalc = tfidfCalc;
+        this.pages = pages;
+        refresh();
+    }
+
+    void refresh() {
+        double[] fresh = new double[pages.size()];
+        Arrays.fill(fresh, Double.NaN);
+        idf = tfidfCalc.idf();
+        norms = fresh;
+    }
+
+    double idf(int termId) {
+        double[] idf = this.idf;
+        return termId < idf.length ? idf[termId] : 0.0;
+    }
+
+    double norm(int page) {
+        double[] norms = this.norms;
+        double norm = norms[page];
+        if (Double.isNaN(norm)) {
+            SparseVector tf = pages.get(page).tfidfVector;
+            double sum = 0.0;
+            for (int k = 0; k < tf.termIds.length; k++) {
+                double w = tf.weights[k] * idf(tf.termIds[k]);
+                sum += w * w;
+            }
+            norm = norms[page] = Math.sqrt(sum); // racing threads store the same value
+        }
+        return norm;
+    }
+}
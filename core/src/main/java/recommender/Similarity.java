@@ -0,0 +1,38 @@
+package recommender;
+
+import java.util.Arrays;
+
+public class Similarity {
+     static double cosineSimilarity(SparseVector vectorA, SparseVector vectorB) {
+        if (vectorA.norm == 0.0 || vectorB.norm == 0.0) return 0.0;
+        if (vectorA.isUnit() && vectorB.isUnit()) return vectorA.dot(vectorB);
+        return vectorA.dot(vectorB) / (vectorA.norm * vectorB.norm);
+    }
+
+    // both vectors must come from normalized(); cosine is then just the dot product
+     static double unitSimilarity(SparseVector unitA, SparseVector unitB) {
+        return unitA.dot(unitB);
+    }
+
+    // one pass over the text, same words as toLowerCase().replaceAll("[^a-z ]", "").split("\\s+"):
+    // words end at spaces, letters are lowercased and every other character is dropped
+     static TermTable countWords(String text) {
+        TermTable counts = new TermTable();
+        char[] word = new char[32];
+        int len = 0;
+        for (int i = 0, n = text.length(); i <= n; i++) {
+            char c = i < n ? text.charAt(i) : ' ';
+            if (c == ' ') {
+                if (len > 0) counts.add(word, len);
+                len = 0;
+                continue;
+            }
+            if (c >= 'A' && c <= 'Z') c += 'a' - 'A';
+            else if (c > 127) c = Character.toLowerCase(c);
+            if (c < 'a' || c > 'z') continue;
+            if (len == word.length) word = Arrays.copyOf(word, len * 2);
+            word[len++] = c;
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,330 @@
+package recommender;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Everything Application needs, in one binary file written and read through a FileChannel.
+ * Layout, all numbers big-endian:
+ * <pre>
+ * header      magic "WRS1", version, pages N, terms V, clusters K, totalDocs, flags, groups G
+ * dictionary  V x (term, document frequency)
+ * clusters    N x int
+ * centroids   K x vector
+ * groups      G x vector, then K x int group of each cluster when G > 0
+ * page table  N + 1 longs, file offset of each page record, then of the index
+ * pages       N x (url, title, vector), grouped by cluster
+ * index       V + 1 offsets, then the postings' page ids and weights
+ * </pre>
+ * A string is an int byte length plus UTF-8 bytes, a vector is norm, scale, an int
+ * count n, n term ids and n weights. Flag bit 0 marks pages and postings that hold plain
+ * term frequencies, IDF is then applied at query time (see {@link QueryTimeIdf}). Groups are
+ * the upper level of a two-level clustering, G is 0 when the clusters are flat.
+ * <p>
+ * {@link #map} leaves the page records and postings in a memory-mapped file and decodes a
+ * page only when it is asked for, so the heap holds the dictionary, the centroids and one
+ * int per page. The file is mapped as one MemorySegment and read at long offsets, so it is
+ * not limited to 2 GB.
+ */
+class Snapshot {
+    static final int MAGIC = 0x57525331; // "WRS1"
+    static final int VERSION = 4;
+    static final int RAW_TF = 1;
+
+    final List<WebData> pages;
+    final int[] clusters;
+    final SparseVector[] centroids;
+    final SparseVector[] groups; // coarse centroids over the clusters, empty when flat
+    final int[] parents; // group of each cluster, empty when flat
+    final TfidfCalculator tfidfCalc;
+    final InvertedIndex index;
+    final int journaled; // pages added or removed through the journal since the file was written
+    final boolean rawTf; // vectors are term frequencies, not TF-IDF
+
+    Snapshot(List<WebData> pages, int[] clusters, SparseVector[] centroids, SparseVector[] groups, int[] parents,
+             TfidfCalculator tfidfCalc, InvertedIndex index, boolean rawTf) {
+        this(pages, clusters, centroids, groups, parents, tfidfCalc, index, 0, rawTf);
+    }
+
+    Snapshot(List<WebData> pages, int[] clusters, SparseVector[] centroids, SparseVector[] groups, int[] parents,
+             TfidfCalculator tfidfCalc, InvertedIndex index, int journaled, boolean rawTf) {
+        this.pages = pages;
+        this.clusters = clusters;
+        this.centroids = centroids;
+        this.groups = groups;
+        this.parents = parents;
+        this.tfidfCalc = tfidfCalc;
+        this.index = index;
+        this.journaled = journaled;
+        this.rawTf = rawTf;
+    }
+
+    // pages with cluster -1 and journaled postings must be dropped by the caller first
+    void write(Path file) throws IOException {
+        TermDictionary dictionary = tfidfCalc.dictionary();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Out out = new Out(channel);
+            out.putInt(MAGIC).putInt(VERSION).putInt(pages.size()).putInt(dictionary.size())
+                    .putInt(centroids.length).putInt(tfidfCalc.totalDocs()).putInt(rawTf ? RAW_TF : 0).putInt(groups.length);
+            for (int id = 0; id < dictionary.size(); id++) {
+                String term = dictionary.term(id);
+                out.putString(term).putInt(tfidfCalc.wordDocCount().getCount(term));
+            }
+            out.putInts(clusters, clusters.length);
+            for (SparseVector centroid : centroids) out.putVector(centroid);
+            for (SparseVector group : groups) out.putVector(group);
+            out.putInts(parents, parents.length);
+            long table = out.position();
+            out.skip(8L * (pages.size() + 1)); // page offsets, filled in below
+            long[] offsets = new long[pages.size() + 1];
+            // a cluster's pages end up next to each other in the file
+            int[] first = new int[centroids.length + 1];
+            for (int cluster : clusters) first[cluster + 1]++;
+            for (int c = 0; c < centroids.length; c++) first[c + 1] += first[c];
+            int[] order = new int[pages.size()];
+            for (int i = 0; i < pages.size(); i++) order[first[clusters[i]]++] = i;
+            for (int i : order) {
+                WebData page = pages.get(i);
+                offsets[i] = out.position();
+                out.putString(page.pageURL).putString(page.pageTitle).putVector(page.tfidfVector);
+            }
+            offsets[pages.size()] = out.position();
+            for (int t = 0; t <= index.terms; t++) out.putInt(index.offset(t));
+            int postings = index.offset(index.terms);
+            for (int at = 0; at < postings; at++) out.putInt(index.page(at));
+            for (int at = 0; at < postings; at++) out.putDouble(index.weight(at));
+            out.flush();
+            ByteBuffer buf = ByteBuffer.allocate(8 * offsets.length);
+            buf.asLongBuffer().put(offsets);
+            channel.write(buf, table);
+        }
+    }
+
+    // decodes every page and copies the postings onto the heap, then replays the journal
+    static Snapshot read(Path file) throws IOException {
+        Snapshot snapshot;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             Arena arena = Arena.ofConfined()) {
+            Snapshot mapped = parse(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena));
+            snapshot = new Snapshot(new ArrayList<>(mapped.pages), mapped.clusters, mapped.centroids, mapped.groups,
+                    mapped.parents, mapped.tfidfCalc, mapped.index.copy(), mapped.rawTf);
+        }
+        return Journal.replay(file, snapshot);
+    }
+
+    // maps the file, pages are decoded from it on every get; the journal is replayed on the heap.
+    // The mapping is released once the snapshot is no longer reachable
+    static Snapshot map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return Journal.replay(file, parse(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(),
+                    Arena.ofAuto())));
+        }
+    }
+
+    private static Snapshot parse(Path file, MemorySegment segment) throws IOException {
+        In in = new In(segment, 0);
+        if (segment.byteSize() < 32 || in.getInt() != MAGIC) throw new IOException(file + " is not a snapshot");
+        int version = in.getInt();
+        if (version != VERSION) throw new IOException("Unsupported snapshot version " + version + ", rerun Loader");
+        int n = in.getInt(), terms = in.getInt(), k = in.getInt(), totalDocs = in.getInt(), flags = in.getInt();
+        int g = in.getInt();
+
+        TermDictionary dictionary = new TermDictionary();
+        TermTable wordDocCount = new TermTable(terms);
+        for (int id = 0; id < terms; id++) {
+            String term = in.getString();
+            dictionary.add(term);
+            wordDocCount.add(term, in.getInt());
+        }
+        int[] clusters = in.getInts(n);
+        SparseVector[] centroids = new SparseVector[k];
+        for (int c = 0; c < k; c++) centroids[c] = in.getVector();
+        SparseVector[] groups = new SparseVector[g];
+        for (int c = 0; c < g; c++) groups[c] = in.getVector();
+        int[] parents = in.getInts(g > 0 ? k : 0);
+        long table = in.position;
+        in.position = segment.get(In.LONG, table + 8L * n);
+        MemorySegment offsets = in.slice(4L * (terms + 1));
+        int postings = offsets.getAtIndex(In.INT, terms);
+        MemorySegment pageIds = in.slice(4L * postings);
+        MemorySegment weights = in.slice(8L * postings);
+        return new Snapshot(new MappedPages(segment, table, n), clusters, centroids, groups, parents,
+                new TfidfCalculator(wordDocCount, dictionary, totalDocs),
+                new InvertedIndex(offsets, pageIds, weights, In.INT, In.DOUBLE), (flags & RAW_TF) != 0);
+    }
+
+    // read-only page list over the records region, nothing is cached
+    static final class MappedPages extends AbstractList<WebData> {
+        private final MemorySegment file;
+        private final long table; // file offset of the page table
+        private final int size;
+
+        MappedPages(MemorySegment file, long table, int size) {
+            this.file = file;
+            this.table = table;
+            this.size = size;
+        }
+
+        @Override
+        public WebData get(int i) {
+            In in = new In(file, file.get(In.LONG, table + 8L * Objects.checkIndex(i, size)));
+            return new WebData(in.getString(), in.getString(), in.getVector());
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    // sequential reader over a segment; positions are longs, so records may sit past 2 GB
+    static final class In {
+        static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+        static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+        static final ValueLayout.OfDouble DOUBLE = ValueLayout.JAVA_DOUBLE_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+
+        private final MemorySegment segment;
+        long position;
+
+        In(MemorySegment segment, long position) {
+            this.segment = segment;
+            this.position = position;
+        }
+
+        int getInt() {
+            int v = segment.get(INT, position);
+            position += 4;
+            return v;
+        }
+
+        double getDouble() {
+            double v = segment.get(DOUBLE, position);
+            position += 8;
+            return v;
+        }
+
+        String getString() {
+            byte[] bytes = new byte[getInt()];
+            MemorySegment.copy(segment, ValueLayout.JAVA_BYTE, position, bytes, 0, bytes.length);
+            position += bytes.length;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        int[] getInts(int n) {
+            int[] values = new int[n];
+            MemorySegment.copy(segment, INT, position, values, 0, n);
+            position += 4L * n;
+            return values;
+        }
+
+        double[] getDoubles(int n) {
+            double[] values = new double[n];
+            MemorySegment.copy(segment, DOUBLE, position, values, 0, n);
+            position += 8L * n;
+            return values;
+        }
+
+        SparseVector getVector() {
+            double norm = getDouble(), scale = getDouble();
+            int n = getInt();
+            return new SparseVector(getInts(n), getDoubles(n), norm, scale);
+        }
+
+        // the next bytes as a view, without copying
+        MemorySegment slice(long bytes) {
+            MemorySegment slice = segment.asSlice(position, bytes);
+            position += bytes;
+            return slice;
+        }
+    }
+
+    // buffered sequential writer that knows its file position
+    static final class Out {
+        private final FileChannel channel;
+        private final ByteBuffer buf = ByteBuffer.allocateDirect(1 << 16);
+        private long flushed = 0;
+
+        Out(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        long position() {
+            return flushed + buf.position();
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buf.remaining() < bytes) flush();
+        }
+
+        void flush() throws IOException {
+            buf.flip();
+            while (buf.hasRemaining()) flushed += channel.write(buf, flushed);
+            buf.clear();
+        }
+
+        void skip(long bytes) throws IOException {
+            flush();
+            flushed += bytes;
+        }
+
+        Out putInt(int v) throws IOException {
+            ensure(4);
+            buf.putInt(v);
+            return this;
+        }
+
+        Out putDouble(double v) throws IOException {
+            ensure(8);
+            buf.putDouble(v);
+            return this;
+        }
+
+        Out putString(String s) throws IOException {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            for (int at = 0; at < bytes.length; ) {
+                ensure(1);
+                int len = Math.min(buf.remaining(), bytes.length - at);
+                buf.put(bytes, at, len);
+                at += len;
+            }
+            return this;
+        }
+
+        Out putInts(int[] values, int n) throws IOException {
+            for (int i = 0; i < n; i++) {
+                ensure(4);
+                buf.putInt(values[i]);
+            }
+            return this;
+        }
+
+        Out putDoubles(double[] values, int n) throws IOException {
+            for (int i = 0; i < n; i++) {
+                ensure(8);
+                buf.putDouble(values[i]);
+            }
+            return this;
+        }
+
+        Out putVector(SparseVector v) throws IOException {
+            ensure(20);
+            buf.putDouble(v.norm).putDouble(v.scale).putInt(v.size());
+            putInts(v.termIds, v.size());
+            return putDoubles(v.weights, v.size());
+        }
+    }
+}
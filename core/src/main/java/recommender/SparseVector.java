@@ -0,0 +1,128 @@
+package recommender;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Term vector as parallel arrays sorted by term id, with its L2 norm computed once.
+ * Two vectors are compared by merging the id arrays, no string hashing involved.
+ * A unit vector from {@link #normalized()} keeps the norm it had before in {@code scale},
+ * so {@code weights[i] * scale} gives back the original weight.
+ */
+class SparseVector implements Serializable {
+    final int[] termIds;
+    final double[] weights;
+    final double norm;
+    final double scale;
+
+    SparseVector(int[] termIds, double[] weights) {
+        this.termIds = termIds;
+        this.weights = weights;
+        double sum = 0.0;
+        for (double w : weights) sum += w * w;
+        this.norm = Math.sqrt(sum);
+        this.scale = 1.0;
+    }
+
+    // for vectors read back from disk, norm and scale are restored rather than recomputed
+    SparseVector(int[] termIds, double[] weights, double norm, double scale) {
+        this.termIds = termIds;
+        this.weights = weights;
+        this.norm = norm;
+        this.scale = scale;
+    }
+
+    // builds a vector from the first n (id, weight) pairs, in any order
+    static SparseVector of(int[] ids, double[] values, int n) {
+        long[] packed = new long[n];
+        for (int i = 0; i < n; i++) packed[i] = ((long) ids[i] << 32) | i;
+        Arrays.sort(packed);
+        int[] termIds = new int[n];
+        double[] weights = new double[n];
+        for (int i = 0; i < n; i++) {
+            termIds[i] = (int) (packed[i] >>> 32);
+            weights[i] = values[(int) packed[i]];
+        }
+        return new SparseVector(termIds, weights);
+    }
+
+    // keeps the non-zero entries of a dense array indexed by term id
+    static SparseVector fromDense(double[] dense) {
+        return fromDense(dense, 0.0);
+    }
+
+    static SparseVector fromDense(double[] dense, double epsilon) {
+        int n = 0;
+        for (double w : dense) if (Math.abs(w) > epsilon) n++;
+        int[] termIds = new int[n];
+        double[] weights = new double[n];
+        for (int id = 0, k = 0; id < dense.length; id++) {
+            if (Math.abs(dense[id]) <= epsilon) continue;
+            termIds[k] = id;
+            weights[k++] = dense[id];
+        }
+        return new SparseVector(termIds, weights);
+    }
+
+    // an all-zero vector has no direction and is returned as is
+    SparseVector normalized() {
+        if (norm == 0.0 || norm == 1.0) return this;
+        double[] unit = new double[weights.length];
+        for (int i = 0; i < weights.length; i++) unit[i] = weights[i] / norm;
+        return new SparseVector(termIds, unit, 1.0, norm * scale);
+    }
+
+    // the n heaviest terms, renormalized; ties at the cut may keep a few more
+    SparseVector top(int n) {
+        if (n >= weights.length) return this;
+        double[] magnitudes = new double[weights.length];
+        for (int i = 0; i < weights.length; i++) magnitudes[i] = Math.abs(weights[i]);
+        Arrays.sort(magnitudes);
+        return keepAtLeast(magnitudes[weights.length - n]);
+    }
+
+    // the heaviest terms that together hold the given fraction of the squared norm, renormalized
+    SparseVector covering(double mass) {
+        if (mass >= 1.0 || weights.length == 0) return this;
+        double[] squares = new double[weights.length];
+        for (int i = 0; i < weights.length; i++) squares[i] = weights[i] * weights[i];
+        Arrays.sort(squares);
+        double goal = mass * norm * norm, covered = 0.0;
+        int i = squares.length - 1;
+        while (i > 0 && (covered += squares[i]) < goal) i--;
+        return keepAtLeast(Math.sqrt(squares[i]));
+    }
+
+    private SparseVector keepAtLeast(double threshold) {
+        int n = 0;
+        for (double w : weights) if (Math.abs(w) >= threshold) n++;
+        int[] keptIds = new int[n];
+        double[] kept = new double[n];
+        for (int i = 0, k = 0; i < weights.length; i++) {
+            if (Math.abs(weights[i]) < threshold) continue;
+            keptIds[k] = termIds[i];
+            kept[k++] = weights[i];
+        }
+        return new SparseVector(keptIds, kept).normalized();
+    }
+
+    boolean isUnit() {
+        return norm == 1.0;
+    }
+
+    int size() {
+        return termIds.length;
+    }
+
+    double dot(SparseVector other) {
+        int[] a = termIds, b = other.termIds;
+        double sum = 0.0;
+        int i = 0, j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) i++;
+            else if (a[i] > b[j]) j++;
+            else sum += weights[i++] * other.weights[j++];
+        }
+        return sum;
+    }
+}
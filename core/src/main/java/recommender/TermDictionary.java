@@ -0,0 +1,61 @@
+package recommender;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Maps every word seen while loading to a dense int id (0, 1, 2, ...), so page vectors
+ * can be stored as sorted id arrays instead of string keyed tables.
+ */
+class TermDictionary implements Serializable {
+    private String[] slots = new String[1024];
+    private int[] slotIds = new int[1024];
+    private String[] terms = new String[512];
+    private int size = 0;
+
+    private int slot(String term) {
+        int mask = slots.length - 1;
+        int h = term.hashCode();
+        int i = (h ^ (h >>> 16)) & mask;
+        while (slots[i] != null && !term.equals(slots[i])) i = (i + 1) & mask;
+        return i;
+    }
+
+    // -1 when the word was never seen while loading
+    int idOf(String term) {
+        int i = slot(term);
+        return slots[i] == null ? -1 : slotIds[i];
+    }
+
+    int add(String term) {
+        int i = slot(term);
+        if (slots[i] != null) return slotIds[i];
+        if (size == terms.length) terms = Arrays.copyOf(terms, size << 1);
+        terms[size] = term;
+        slots[i] = term;
+        slotIds[i] = size;
+        if (++size * 2 >= slots.length) resize();
+        return size - 1;
+    }
+
+    String term(int id) {
+        return terms[id];
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void resize() {
+        String[] oldSlots = slots;
+        int[] oldIds = slotIds;
+        slots = new String[oldSlots.length << 1];
+        slotIds = new int[slots.length];
+        for (int i = 0; i < oldSlots.length; i++) {
+            if (oldSlots[i] == null) continue;
+            int j = slot(oldSlots[i]);
+            slots[j] = oldSlots[i];
+            slotIds[j] = oldIds[i];
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package recommender;
+
+import java.io.Serializable;
+
+/**
+ * String keyed table specialised for term vectors. Keys, weights and counts are kept in
+ * parallel arrays with linear probing, so there is no Node or boxed Double per term.
+ * Walk it with {@code for (int i = 0; i < t.keys.length; i++) if (t.keys[i] != null) ...}.
+ */
+class TermTable implements Serializable {
+    String[] keys;
+    double[] values;
+    int[] counts;
+    int size = 0;
+
+    TermTable() {
+        this(16);
+    }
+
+    TermTable(int expected) {
+        int cap = 16;
+        while (cap * 3 < expected * 4) cap <<= 1; // keep load under 0.75
+        keys = new String[cap];
+        values = new double[cap];
+        counts = new int[cap];
+    }
+
+    private static int hash(String key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private int slot(String key) {
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (keys[i] != null && !key.equals(keys[i])) i = (i + 1) & mask;
+        return i;
+    }
+
+    // claims the slot for key if it is free, returns its index
+    private int insert(String key) {
+        int i = slot(key);
+        if (keys[i] == null) {
+            keys[i] = key;
+            if (++size * 4 >= keys.length * 3) {
+                resize();
+                i = slot(key);
+            }
+        }
+        return i;
+    }
+
+    double get(String key) {
+        int i = slot(key);
+        return keys[i] == null ? 0.0 : values[i];
+    }
+
+    int getCount(String key) {
+        int i = slot(key);
+        return keys[i] == null ? 0 : counts[i];
+    }
+
+    boolean contains(String key) {
+        return keys[slot(key)] != null;
+    }
+
+    // insert() may resize, so the arrays are only read after it returns
+    void add(String key) {
+        int i = insert(key);
+        counts[i]++;
+    }
+
+    // counts the word in chars[0, len), a String key is only made the first time it is seen
+    void add(char[] chars, int len) {
+        int h = 0;
+        for (int k = 0; k < len; k++) h = 31 * h + chars[k]; // same as String.hashCode
+        int mask = keys.length - 1;
+        int i = (h ^ (h >>> 16)) & mask;
+        while (keys[i] != null && !sameChars(keys[i], chars, len)) i = (i + 1) & mask;
+        if (keys[i] == null) add(new String(chars, 0, len));
+        else counts[i]++;
+    }
+
+    private static boolean sameChars(String key, char[] chars, int len) {
+        if (key.length() != len) return false;
+        for (int k = 0; k < len; k++) {
+            if (key.charAt(k) != chars[k]) return false;
+        }
+        return true;
+    }
+
+    void add(String key, int n) {
+        int i = insert(key);
+        counts[i] += n;
+    }
+
+    void put(String key, double value) {
+        int i = insert(key);
+        values[i] = value;
+    }
+
+    void addValue(String key, double delta) {
+        int i = insert(key);
+        values[i] += delta;
+    }
+
+    TermTable copy() {
+        TermTable t = new TermTable(0);
+        t.keys = keys.clone();
+        t.values = values.clone();
+        t.counts = counts.clone();
+        t.size = size;
+        return t;
+    }
+
+    void resize() {
+        String[] oldKeys = keys;
+        double[] oldValues = values;
+        int[] oldCounts = counts;
+        keys = new String[oldKeys.length << 1];
+        values = new double[keys.length];
+        counts = new int[keys.length];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == null) continue;
+            int j = slot(oldKeys[i]);
+            keys[j] = oldKeys[i];
+            values[j] = oldValues[i];
+            counts[j] = oldCounts[i];
+        }
+    }
+}
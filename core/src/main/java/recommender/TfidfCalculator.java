@@ -0,0 +1,95 @@
+package recommender;
+
+import java.io.*;
+
+public class TfidfCalculator implements Serializable {
+    private final TermTable wordDocCount;
+    private final TermDictionary dictionary;
+    private final int totalDocs;
+
+    TfidfCalculator(TermTable wordDocCount, TermDictionary dictionary, int totalDocs) {
+        this.wordDocCount = wordDocCount;
+        this.dictionary = dictionary;
+        this.totalDocs = totalDocs;
+    }
+
+    SparseVector computeTfidf(TermTable wordCounts) {
+        return computeTfidf(wordCounts, false);
+    }
+
+    // words missing from the dictionary are dropped, no loaded page can share them, and so are
+    // words whose every page was removed (document count 0), as in idf()
+    SparseVector computeTfidf(TermTable wordCounts, boolean normalize) {
+        int totalWords = 0;
+        for (int i = 0; i < wordCounts.keys.length; i++) totalWords += wordCounts.counts[i];
+        int[] ids = new int[wordCounts.size];
+        double[] scores = new double[wordCounts.size];
+        int n = 0;
+        for (int i = 0; i < wordCounts.keys.length; i++) {
+            String word = wordCounts.keys[i];
+            if (word == null) continue;
+            int id = dictionary.idOf(word);
+            int df = wordDocCount.getCount(word);
+            if (id < 0 || df <= 0) continue;
+            double tf = (double) wordCounts.counts[i] / totalWords;
+            double idf = Math.log((double) totalDocs / df);
+            ids[n] = id;
+            scores[n++] = tf * idf;
+        }
+        SparseVector vector = SparseVector.of(ids, scores, n);
+        return normalize ? vector.normalized() : vector;
+    }
+
+    // term frequencies only, for snapshots that apply IDF at query time
+    SparseVector computeTf(TermTable wordCounts) {
+        int totalWords = 0;
+        for (int i = 0; i < wordCounts.keys.length; i++) totalWords += wordCounts.counts[i];
+        int[] ids = new int[wordCounts.size];
+        double[] tfs = new double[wordCounts.size];
+        int n = 0;
+        for (int i = 0; i < wordCounts.keys.length; i++) {
+            if (wordCounts.keys[i] == null) continue;
+            int id = dictionary.idOf(wordCounts.keys[i]);
+            if (id < 0) continue;
+            ids[n] = id;
+            tfs[n++] = (double) wordCounts.counts[i] / totalWords;
+        }
+        return SparseVector.of(ids, tfs, n);
+    }
+
+    // a computeTf vector weighted with the current IDF, same as computeTfidf on its counts
+    SparseVector weigh(SparseVector tf, boolean normalize) {
+        double[] idf = idf();
+        double[] scores = new double[tf.size()];
+        for (int k = 0; k < scores.length; k++) scores[k] = tf.weights[k] * idf[tf.termIds[k]];
+        SparseVector vector = new SparseVector(tf.termIds, scores);
+        return normalize ? vector.normalized() : vector;
+    }
+
+    // log(totalDocs / df) by term id; 0 for terms no page has any more
+    double[] idf() {
+        double[] idf = new double[dictionary.size()];
+        for (int id = 0; id < idf.length; id++) {
+            int df = wordDocCount.getCount(dictionary.term(id));
+            idf[id] = df > 0 ? Math.log((double) totalDocs / df) : 0.0;
+        }
+        return idf;
+    }
+
+     SparseVector computeTfidfForText(String text) {
+        TermTable wordCounts = Similarity.countWords(text);
+        return computeTfidf(wordCounts, true);
+    }
+
+    TermDictionary dictionary() {
+        return dictionary;
+    }
+
+    TermTable wordDocCount() {
+        return wordDocCount;
+    }
+
+    int totalDocs() {
+        return totalDocs;
+    }
+}
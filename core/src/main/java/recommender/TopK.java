@@ -0,0 +1,62 @@
+package recommender;
+
+/**
+ * Keeps the k best (id, score) pairs seen so far in a min-heap over primitive arrays,
+ * so picking the top results never sorts or boxes the full candidate list.
+ */
+class TopK {
+    final int[] ids;
+    final double[] scores;
+    int size = 0;
+
+    TopK(int k) {
+        ids = new int[k];
+        scores = new double[k];
+    }
+
+    void offer(int id, double score) {
+        if (size < ids.length) {
+            int i = size++;
+            while (i > 0 && scores[(i - 1) / 2] > score) { // sift up
+                int parent = (i - 1) / 2;
+                ids[i] = ids[parent];
+                scores[i] = scores[parent];
+                i = parent;
+            }
+            ids[i] = id;
+            scores[i] = score;
+        } else if (size > 0 && score > scores[0]) {
+            siftDown(id, score, size);
+        }
+    }
+
+    private void siftDown(int id, double score, int n) {
+        int i = 0;
+        while (2 * i + 1 < n) {
+            int child = 2 * i + 1;
+            if (child + 1 < n && scores[child + 1] < scores[child]) child++;
+            if (scores[child] >= score) break;
+            ids[i] = ids[child];
+            scores[i] = scores[child];
+            i = child;
+        }
+        ids[i] = id;
+        scores[i] = score;
+    }
+
+    // orders ids/scores best first in place (the heap is used up) and returns how many there are
+    int sort() {
+        for (int n = size - 1; n > 0; n--) {
+            int id = ids[n];
+            double score = scores[n];
+            ids[n] = ids[0];
+            scores[n] = scores[0];
+            siftDown(id, score, n);
+        }
+        return size;
+    }
+
+    void clear() {
+        size = 0;
+    }
+}
@@ -1,11 +1,13 @@
+package recommender;
+
 import java.io.Serializable;
 
 class WebData implements Serializable {
     String pageURL;
     String pageTitle;
-    HT tfidfVector; // This HT holds word counts first, then TF-IDF scores
+    SparseVector tfidfVector;
 
-    WebData(String url, String title, HT tfidf) {
+    WebData(String url, String title, SparseVector tfidf) {
         this.pageURL = url;
         this.pageTitle = title;
         this.tfidfVector = tfidf;
@@ -0,0 +1,88 @@
+package recommender;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.List;
+import java.util.Random;
+import java.util.function.UnaryOperator;
+
+public class CentroidAccumulatorTest {
+    private static final int TERMS = 300, K = 6;
+
+    //unit mean direction of the cluster's raw vectors, summed the slow way
+    private static double[] expected(List<WebData> pages, int[] assignments, int cluster) {
+        double[] sum = new double[TERMS];
+        for (int i = 0; i < pages.size(); i++) {
+            if (assignments[i] != cluster) continue;
+            SparseVector v = pages.get(i).tfidfVector;
+            for (int j = 0; j < v.size(); j++) sum[v.termIds[j]] += v.weights[j] * v.scale;
+        }
+        double norm = 0;
+        for (double w : sum) norm += w * w;
+        norm = Math.sqrt(norm);
+        for (int id = 0; id < TERMS; id++) sum[id] = norm == 0 ? 0 : sum[id] / norm;
+        return sum;
+    }
+
+    private static void assertCentroids(List<WebData> pages, int[] assignments, SparseVector[] centroids) {
+        for (int c = 0; c < K; c++) {
+            double[] want = expected(pages, assignments, c);
+            double[] got = new double[TERMS];
+            for (int j = 0; j < centroids[c].size(); j++) got[centroids[c].termIds[j]] = centroids[c].weights[j];
+            assertArrayEquals(want, got, 1e-9);
+        }
+    }
+
+    private static int[] randomAssignments(Random random, int n) {
+        int[] assignments = new int[n];
+        //cluster K - 1 is left empty
+        for (int i = 0; i < n; i++) assignments[i] = random.nextInt(K - 1);
+        return assignments;
+    }
+
+    @Test
+    public void buildMatchesTheMeanOfEachCluster() {
+        List<WebData> pages = TestPages.pages(1, 2000, TERMS, 4);
+        int[] assignments = randomAssignments(new Random(2), pages.size());
+        for (boolean parallel : new boolean[]{false, true}) {
+            CentroidAccumulator sums = CentroidAccumulator.build(pages, assignments, K, TERMS, parallel);
+            SparseVector[] centroids = new SparseVector[K];
+            assertEquals(K, sums.refresh(centroids, UnaryOperator.identity()));
+            assertEquals(0, centroids[K - 1].size());
+            int members = 0;
+            for (int c = 0; c < K; c++) members += sums.members[c];
+            assertEquals(pages.size(), members);
+            assertCentroids(pages, assignments, centroids);
+        }
+    }
+
+    @Test
+    public void oneClusterSummedAcrossChunksMatchesTheSerialSum() {
+        List<WebData> pages = TestPages.pages(5, 1500, TERMS, 4);
+        int[] assignments = new int[pages.size()];
+        //every page in cluster 0, so each parallel chunk holds a part of the same cluster
+        CentroidAccumulator serial = CentroidAccumulator.build(pages, assignments, K, TERMS, false);
+        CentroidAccumulator parallel = CentroidAccumulator.build(pages, assignments, K, TERMS, true);
+        assertEquals(pages.size(), parallel.members[0]);
+        assertArrayEquals(serial.sums[0], parallel.sums[0], 1e-9);
+        for (int c = 1; c < K; c++) assertNull(parallel.sums[c]);
+    }
+
+    @Test
+    public void movesMatchARebuild() {
+        List<WebData> pages = TestPages.pages(3, 1000, TERMS, 4);
+        Random random = new Random(4);
+        int[] assignments = randomAssignments(random, pages.size());
+        CentroidAccumulator sums = CentroidAccumulator.build(pages, assignments, K, TERMS, true);
+        SparseVector[] centroids = new SparseVector[K];
+        sums.refresh(centroids, UnaryOperator.identity());
+        for (int i = 0; i < 100; i++) {
+            int page = random.nextInt(pages.size()), to = random.nextInt(K);
+            sums.move(pages.get(page).tfidfVector, assignments[page], to);
+            assignments[page] = to;
+        }
+        sums.refresh(centroids, UnaryOperator.identity());
+        assertCentroids(pages, assignments, centroids);
+        assertEquals(0, sums.refresh(centroids, UnaryOperator.identity()));
+    }
+}
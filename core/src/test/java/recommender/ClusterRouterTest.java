@@ -0,0 +1,99 @@
+package recommender;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class ClusterRouterTest {
+    private static Map<Integer, Double> scores(InvertedIndex.Hits hits) {
+        Map<Integer, Double> scores = new HashMap<>();
+        for (int i = 0; i < hits.pages().length; i++) scores.put(hits.pages()[i], hits.scores()[i]);
+        return scores;
+    }
+
+    @Test
+    public void probedRunsScoreLikeFilteringEveryPosting() {
+        Snapshot snapshot = TestPages.snapshot(1, 600, 8, false);
+        int k = snapshot.centroids.length, terms = snapshot.tfidfCalc.dictionary().size();
+        //pages appended after the grouped ones, as the journal does, in any cluster
+        List<WebData> pages = new ArrayList<>(snapshot.pages);
+        List<WebData> added = TestPages.pages(2, 50, terms, 4);
+        pages.addAll(added);
+        int[] clusters = Arrays.copyOf(snapshot.clusters, pages.size());
+        Random random = new Random(3);
+        for (int p = snapshot.pages.size(); p < pages.size(); p++) clusters[p] = random.nextInt(k);
+        clusters[10] = -1; //a removed page inside the grouped run
+        InvertedIndex index = snapshot.index.with(new InvertedIndex(added, terms, snapshot.pages.size()));
+        InvertedIndex.Layout layout = InvertedIndex.Layout.of(clusters, k);
+        assertEquals(snapshot.pages.size(), layout.grouped());
+        for (WebData query : TestPages.pages(4, 40, terms, 4)) {
+            int[] probes = new int[1 + random.nextInt(k)];
+            for (int i = 0; i < probes.length; i++) probes[i] = (random.nextInt(k) + i) % k;
+            probes = Arrays.stream(probes).distinct().toArray();
+            Map<Integer, Double> expected = new HashMap<>();
+            for (int c : probes) expected.putAll(scores(index.score(query.tfidfVector, clusters, c)));
+            Map<Integer, Double> probed = scores(index.score(query.tfidfVector, clusters, probes, layout, null));
+            assertEquals(expected.keySet(), probed.keySet());
+            for (int p : expected.keySet()) assertEquals(expected.get(p), probed.get(p), 1e-12);
+            assertFalse(probed.containsKey(10));
+        }
+    }
+
+    @Test
+    public void probingEveryClusterFindsTheExactTopK() {
+        Snapshot snapshot = TestPages.snapshot(5, 500, 6, false);
+        QueryEngine engine = new QueryEngine(snapshot);
+        for (int id = 0; id < snapshot.pages.size(); id += 25) {
+            SparseVector query = snapshot.pages.get(id).tfidfVector;
+            TopK exact = new TopK(5);
+            for (int p = 0; p < snapshot.pages.size(); p++) {
+                double cosine = Similarity.cosineSimilarity(query, snapshot.pages.get(p).tfidfVector);
+                if (p != id && cosine > 0) exact.offer(p, cosine);
+            }
+            int n = exact.sort();
+            List<QueryEngine.Result> results = engine.similarTo(id, 5, 6, 1).results();
+            assertEquals(n, results.size());
+            for (int i = 0; i < n; i++) assertEquals(exact.scores[i], results.get(i).score(), 1e-12);
+        }
+    }
+
+    @Test
+    public void routesToTheMostSimilarCentroidsFirst() {
+        Snapshot snapshot = TestPages.snapshot(6, 300, 6, false);
+        ClusterRouter router = new ClusterRouter(snapshot);
+        for (int id = 0; id < snapshot.pages.size(); id += 10) {
+            SparseVector query = snapshot.pages.get(id).tfidfVector;
+            int[] route = router.route(query, 3, 1);
+            assertEquals(3, route.length);
+            assertEquals(KMeans.nearestCentroid(query, snapshot.centroids), route[0]);
+            for (int i = 1; i < route.length; i++) {
+                assertTrue(Similarity.unitSimilarity(query, snapshot.centroids[route[i - 1]])
+                        >= Similarity.unitSimilarity(query, snapshot.centroids[route[i]]));
+            }
+            assertEquals(6, router.route(query, 100, 1).length);
+        }
+    }
+
+    @Test
+    public void groupsLimitTheClustersCompared() {
+        Snapshot snapshot = TestPages.snapshot(7, 300, 6, false);
+        //clusters 0-2 under group 0, 3-5 under group 1, the groups are their first clusters' centroids
+        int[] parents = {0, 0, 0, 1, 1, 1};
+        SparseVector[] groups = {snapshot.centroids[0], snapshot.centroids[3]};
+        ClusterRouter router = new ClusterRouter(snapshot.centroids, groups, parents);
+        ClusterRouter flat = new ClusterRouter(snapshot);
+        for (int id = 0; id < snapshot.pages.size(); id += 10) {
+            SparseVector query = snapshot.pages.get(id).tfidfVector;
+            int group = Similarity.unitSimilarity(query, groups[1]) > Similarity.unitSimilarity(query, groups[0]) ? 1 : 0;
+            for (int c : router.route(query, 6, 1)) assertEquals(group, parents[c]);
+            assertEquals(3, router.route(query, 6, 1).length);
+            //every group open is the flat routing
+            assertArrayEquals(flat.route(query, 4, 1), router.route(query, 4, 2));
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package recommender;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class InvertedIndexTest {
+    private static final int TERMS = 500, K = 5;
+
+    private static Map<Integer, Double> scores(InvertedIndex.Hits hits) {
+        Map<Integer, Double> scores = new HashMap<>();
+        for (int i = 0; i < hits.pages().length; i++) {
+            assertNull("page listed twice", scores.put(hits.pages()[i], hits.scores()[i]));
+        }
+        return scores;
+    }
+
+    //every page of the wanted cluster (any live one when negative) sharing a term with the query
+    private static void assertBruteForce(List<WebData> pages, int[] clusters, int cluster, SparseVector query,
+                                         InvertedIndex.Hits hits) {
+        Map<Integer, Double> scores = scores(hits);
+        int expected = 0;
+        for (int p = 0; p < pages.size(); p++) {
+            double cosine = Similarity.cosineSimilarity(query, pages.get(p).tfidfVector);
+            boolean wanted = clusters[p] >= 0 && (cluster < 0 || clusters[p] == cluster);
+            if (!wanted || cosine == 0.0) {
+                assertFalse("page " + p, scores.containsKey(p));
+                continue;
+            }
+            expected++;
+            assertEquals("page " + p, cosine, scores.get(p), 1e-12);
+        }
+        assertEquals(expected, scores.size());
+    }
+
+    @Test
+    public void scoresMatchBruteForceCosine() {
+        List<WebData> pages = TestPages.pages(1, 3000, TERMS, 5);
+        Random random = new Random(2);
+        int[] clusters = new int[pages.size()];
+        for (int p = 0; p < clusters.length; p++) clusters[p] = random.nextInt(K);
+        InvertedIndex index = new InvertedIndex(pages, TERMS);
+        for (WebData query : TestPages.pages(3, 50, TERMS, 5)) {
+            assertBruteForce(pages, clusters, -1, query.tfidfVector, index.score(query.tfidfVector, clusters, -1));
+            int cluster = random.nextInt(K);
+            assertBruteForce(pages, clusters, cluster, query.tfidfVector,
+                    index.score(query.tfidfVector, clusters, cluster));
+        }
+    }
+
+    @Test
+    public void removedPagesNeverScore() {
+        List<WebData> pages = TestPages.pages(4, 1000, TERMS, 5);
+        int[] clusters = new int[pages.size()];
+        for (int p = 0; p < clusters.length; p += 3) clusters[p] = -1;
+        InvertedIndex index = new InvertedIndex(pages, TERMS);
+        for (WebData query : TestPages.pages(5, 20, TERMS, 5)) {
+            assertBruteForce(pages, clusters, -1, query.tfidfVector, index.score(query.tfidfVector, clusters, -1));
+        }
+    }
+
+    @Test
+    public void appendedPagesScoreLikeAFreshIndex() {
+        //the appended pages also use terms past the first part's dictionary
+        List<WebData> pages = new ArrayList<>(TestPages.pages(6, 1000, TERMS, 5));
+        pages.addAll(TestPages.pages(7, 500, TERMS + 100, 5));
+        int[] clusters = new int[pages.size()];
+        InvertedIndex index = new InvertedIndex(pages.subList(0, 1000), TERMS)
+                .with(new InvertedIndex(pages.subList(1000, 1500), TERMS + 100, 1000));
+        InvertedIndex fresh = new InvertedIndex(pages, TERMS + 100);
+        for (WebData query : TestPages.pages(8, 30, TERMS + 100, 5)) {
+            Map<Integer, Double> appended = scores(index.score(query.tfidfVector, clusters, -1));
+            Map<Integer, Double> whole = scores(fresh.score(query.tfidfVector, clusters, -1));
+            assertEquals(whole.keySet(), appended.keySet());
+            for (int p : whole.keySet()) assertEquals(whole.get(p), appended.get(p), 1e-12);
+        }
+    }
+
+    @Test
+    public void queryWithUnknownTermsScoresNothing() {
+        List<WebData> pages = TestPages.pages(9, 100, TERMS, 5);
+        InvertedIndex index = new InvertedIndex(pages, TERMS);
+        SparseVector query = SparseVector.of(new int[]{TERMS + 1, TERMS + 7}, new double[]{1, 1}, 2);
+        assertEquals(0, index.score(query, new int[pages.size()], -1).pages().length);
+    }
+}
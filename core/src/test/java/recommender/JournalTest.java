@@ -0,0 +1,120 @@
+package recommender;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.io.IOException;
+import java.nio.file.Path;
+
+public class JournalTest {
+    @Test
+    public void replayAddsAndRemovesPages() throws IOException {
+        Path dir = SnapshotTest.tempDir();
+        try {
+            Path file = dir.resolve("snapshot.bin");
+            Snapshot base = TestPages.snapshot(1, 200, 4, false);
+            base.write(file);
+            int terms = base.tfidfCalc.dictionary().size();
+            int docs = base.tfidfCalc.totalDocs();
+            String common = base.tfidfCalc.dictionary().term(0);
+            int commonDf = base.tfidfCalc.wordDocCount().getCount(common);
+            SparseVector added = SparseVector.of(new int[]{terms, 0}, new double[]{2, 1}, 2).normalized();
+            try (Journal journal = new Journal(file)) {
+                journal.term("newword");
+                journal.page(new WebData("http://test/new", "new page", added), 3);
+                journal.removed(5);
+                journal.removed(200); //the page just added
+                journal.removed(7);
+            }
+            for (Snapshot replayed : new Snapshot[]{Snapshot.read(file), Snapshot.map(file)}) {
+                assertEquals(201, replayed.pages.size());
+                assertEquals(4, replayed.journaled);
+                assertEquals("http://test/new", replayed.pages.get(200).pageURL);
+                SnapshotTest.assertSameVector("added", added, replayed.pages.get(200).tfidfVector);
+                assertEquals(-1, replayed.clusters[5]);
+                assertEquals(-1, replayed.clusters[7]);
+                assertEquals(-1, replayed.clusters[200]);
+                assertEquals(base.clusters[6], replayed.clusters[6]);
+                TermDictionary dictionary = replayed.tfidfCalc.dictionary();
+                assertEquals(terms + 1, dictionary.size());
+                assertEquals(terms, dictionary.idOf("newword"));
+                //added then removed again, so the counts are back where they were less pages 5 and 7
+                assertEquals(0, replayed.tfidfCalc.wordDocCount().getCount("newword"));
+                assertEquals(docs - 2, replayed.tfidfCalc.totalDocs());
+                int removedWithCommon = 0;
+                for (int p : new int[]{5, 7}) {
+                    for (int id : base.pages.get(p).tfidfVector.termIds) if (id == 0) removedWithCommon++;
+                }
+                assertEquals(commonDf - removedWithCommon, replayed.tfidfCalc.wordDocCount().getCount(common));
+                //removed pages never come back from a query
+                QueryEngine engine = new QueryEngine(replayed);
+                for (QueryEngine.Result r : engine.similarTo(6, 200, 4, 1).results()) {
+                    assertTrue(replayed.clusters[r.id()] >= 0);
+                }
+                assertThrows(IllegalArgumentException.class, () -> engine.similarTo(5, 3, 1, 1));
+            }
+        } finally {
+            SnapshotTest.delete(dir);
+        }
+    }
+
+    @Test
+    public void addedPagesAreFoundByQueries() throws IOException {
+        Path dir = SnapshotTest.tempDir();
+        try {
+            Path file = dir.resolve("snapshot.bin");
+            Snapshot base = TestPages.snapshot(2, 100, 3, false);
+            base.write(file);
+            int terms = base.tfidfCalc.dictionary().size();
+            try (Journal journal = new Journal(file)) {
+                journal.term("zebra");
+                journal.page(new WebData("http://test/zebra", "zebra", SparseVector.of(new int[]{terms},
+                        new double[]{1}, 1).normalized()), 0);
+            }
+            QueryEngine engine = QueryEngine.load(file, false);
+            QueryEngine.Answer answer = engine.similar("zebra zebra", 1, 3, 1);
+            assertEquals(1, answer.results().size());
+            assertEquals("http://test/zebra", answer.results().get(0).page().pageURL);
+        } finally {
+            SnapshotTest.delete(dir);
+        }
+    }
+
+    @Test
+    public void wordsOfRemovedPagesDoNotBreakTheWeights() throws IOException {
+        Path dir = SnapshotTest.tempDir();
+        try {
+            Path file = dir.resolve("snapshot.bin");
+            Snapshot base = TestPages.snapshot(3, 100, 3, false);
+            base.write(file);
+            //remove every page holding the first page's rarest word
+            TermDictionary dictionary = base.tfidfCalc.dictionary();
+            SparseVector first = base.pages.get(0).tfidfVector;
+            int rare = first.termIds[0];
+            for (int id : first.termIds) {
+                if (base.tfidfCalc.wordDocCount().getCount(dictionary.term(id))
+                        < base.tfidfCalc.wordDocCount().getCount(dictionary.term(rare))) rare = id;
+            }
+            try (Journal journal = new Journal(file)) {
+                for (int p = 0; p < base.pages.size(); p++) {
+                    for (int id : base.pages.get(p).tfidfVector.termIds) {
+                        if (id == rare) journal.removed(p);
+                    }
+                }
+            }
+            Snapshot replayed = Snapshot.read(file);
+            String word = dictionary.term(rare);
+            assertEquals(0, replayed.tfidfCalc.wordDocCount().getCount(word));
+            SparseVector query = replayed.tfidfCalc.computeTfidfForText(word + " " + word + " " + dictionary.term(
+                    base.pages.get(1).tfidfVector.termIds[0]));
+            for (int i = 0; i < query.size(); i++) {
+                assertTrue(Double.isFinite(query.weights[i]));
+                assertTrue(query.termIds[i] != rare);
+            }
+            for (QueryEngine.Result r : new QueryEngine(replayed).similar(word, 5, 3, 1).results()) {
+                assertTrue(Double.isFinite(r.score()));
+            }
+        } finally {
+            SnapshotTest.delete(dir);
+        }
+    }
+}
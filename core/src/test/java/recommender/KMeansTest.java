@@ -0,0 +1,65 @@
+package recommender;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.List;
+import java.util.Random;
+import java.util.function.UnaryOperator;
+
+public class KMeansTest {
+    private static final int TERMS = 400;
+
+    private static KMeans kmeans(boolean parallel, boolean exhaustive) {
+        return new KMeans(TERMS, 50, 1, 7, parallel, exhaustive, UnaryOperator.identity());
+    }
+
+    @Test
+    public void boundsAssignLikeComparingEveryCentroid() {
+        List<WebData> pages = TestPages.pages(1, 3000, TERMS, 6);
+        Random random = new Random(2);
+        AssignmentBounds bounds = new AssignmentBounds(pages);
+        int[] assignments = new int[pages.size()];
+        //centroids that drift a little each round, sometimes a lot, like k-means updates do
+        SparseVector[] centroids = kmeans(false, true).seeds(pages, 8, random);
+        for (int round = 0; round < 15; round++) {
+            bounds.assign(centroids, assignments, round % 2 == 0);
+            for (int i = 0; i < pages.size(); i++) {
+                assertEquals("page " + i + " round " + round,
+                        KMeans.nearestCentroid(pages.get(i).tfidfVector, centroids), assignments[i]);
+            }
+            for (int c = 0; c < centroids.length; c++) {
+                WebData other = pages.get(random.nextInt(pages.size()));
+                double mix = round % 5 == 4 ? 0.5 : 0.05;
+                double[] dense = new double[TERMS];
+                for (int j = 0; j < centroids[c].size(); j++) dense[centroids[c].termIds[j]] += centroids[c].weights[j];
+                SparseVector v = other.tfidfVector;
+                for (int j = 0; j < v.size(); j++) dense[v.termIds[j]] += mix * v.weights[j];
+                centroids[c] = SparseVector.fromDense(dense).normalized();
+            }
+        }
+        assertTrue(bounds.skipped.sum() > 0);
+    }
+
+    @Test
+    public void hamerlyClustersLikeExhaustive() {
+        List<WebData> pages = TestPages.pages(3, 2000, TERMS, 5);
+        for (boolean parallel : new boolean[]{false, true}) {
+            KMeans.Result fast = kmeans(parallel, false).cluster(pages, 6);
+            KMeans.Result full = kmeans(parallel, true).cluster(pages, 6);
+            assertArrayEquals(full.assignments(), fast.assignments());
+            for (int c = 0; c < 6; c++) {
+                assertArrayEquals(full.centroids()[c].termIds, fast.centroids()[c].termIds);
+                assertArrayEquals(full.centroids()[c].weights, fast.centroids()[c].weights, 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void sameSeedSameClusters() {
+        List<WebData> pages = TestPages.pages(4, 1000, TERMS, 4);
+        KMeans.Result a = kmeans(true, false).cluster(pages, 5);
+        KMeans.Result b = kmeans(false, false).cluster(pages, 5);
+        assertArrayEquals(a.assignments(), b.assignments());
+        assertTrue(KMeans.inertia(pages, a) >= 0);
+    }
+}
@@ -0,0 +1,56 @@
+package recommender;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+public class SimilarityTest {
+    //the tokenizer countWords replaced
+    private static Map<String, Integer> regexCounts(String text) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (String word : text.toLowerCase(Locale.ROOT).replaceAll("[^a-z ]", "").split("\\s+")) {
+            if (!word.isEmpty()) counts.merge(word, 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    private static Map<String, Integer> counts(TermTable table) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < table.keys.length; i++) {
+            if (table.keys[i] != null) counts.put(table.keys[i], table.counts[i]);
+        }
+        assertEquals(counts.size(), table.size);
+        return counts;
+    }
+
+    private static void assertSameWords(String text) {
+        assertEquals(text, regexCounts(text), counts(Similarity.countWords(text)));
+    }
+
+    @Test
+    public void countWordsMatchesTheRegexTokenizer() {
+        assertSameWords("");
+        assertSameWords("   ");
+        assertSameWords("hello world 23 Hello hello 999 world");
+        assertSameWords("HeLLo! hello, world. ?HELLO world, wOrld!");
+        assertSameWords("  leading and trailing  spaces ");
+        assertSameWords("tabs\tand\nnewlines\r\nglue words");
+        assertSameWords("don't co-operate e.g. U.S.A.");
+        assertSameWords("café naïve ÀÉÎ straße İstanbul \u212Aelvin");
+        assertSameWords("a".repeat(100) + " " + "B".repeat(33) + "c");
+    }
+
+    @Test
+    public void countWordsMatchesTheRegexTokenizerOnRandomText() {
+        String alphabet = "abcxyzABCXYZ      \t\n0129.,;'!-_éÉüÜßİıΣσДд\u212A\u00A0";
+        Random random = new Random(1);
+        for (int round = 0; round < 2000; round++) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = random.nextInt(120); i > 0; i--) sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            assertSameWords(sb.toString());
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package recommender;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+public class SnapshotTest {
+    static Path tempDir() throws IOException {
+        return Files.createTempDirectory("snapshot-test");
+    }
+
+    static void delete(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) Files.delete(p);
+        }
+    }
+
+    static void assertSameVector(String what, SparseVector expected, SparseVector actual) {
+        assertArrayEquals(what, expected.termIds, actual.termIds);
+        assertArrayEquals(expected.weights, actual.weights, 0.0);
+        assertEquals(what, expected.norm, actual.norm, 0.0);
+        assertEquals(what, expected.scale, actual.scale, 0.0);
+    }
+
+    static void assertSameSnapshot(Snapshot expected, Snapshot actual) {
+        assertEquals(expected.pages.size(), actual.pages.size());
+        for (int p = 0; p < expected.pages.size(); p++) {
+            WebData want = expected.pages.get(p), got = actual.pages.get(p);
+            assertEquals(want.pageURL, got.pageURL);
+            assertEquals(want.pageTitle, got.pageTitle);
+            assertSameVector(want.pageURL, want.tfidfVector, got.tfidfVector);
+        }
+        assertArrayEquals(expected.clusters, actual.clusters);
+        assertEquals(expected.centroids.length, actual.centroids.length);
+        for (int c = 0; c < expected.centroids.length; c++) {
+            assertSameVector("centroid " + c, expected.centroids[c], actual.centroids[c]);
+        }
+        assertEquals(expected.groups.length, actual.groups.length);
+        assertArrayEquals(expected.parents, actual.parents);
+        assertEquals(expected.rawTf, actual.rawTf);
+        TermDictionary want = expected.tfidfCalc.dictionary(), got = actual.tfidfCalc.dictionary();
+        assertEquals(want.size(), got.size());
+        for (int id = 0; id < want.size(); id++) {
+            assertEquals(want.term(id), got.term(id));
+            assertEquals(want.term(id), expected.tfidfCalc.wordDocCount().getCount(want.term(id)),
+                    actual.tfidfCalc.wordDocCount().getCount(got.term(id)));
+        }
+        assertEquals(expected.tfidfCalc.totalDocs(), actual.tfidfCalc.totalDocs());
+        assertEquals(expected.index.terms, actual.index.terms);
+        for (int t = 0; t <= expected.index.terms; t++) assertEquals(expected.index.offset(t), actual.index.offset(t));
+        for (int at = 0; at < expected.index.offset(expected.index.terms); at++) {
+            assertEquals(expected.index.page(at), actual.index.page(at));
+            assertEquals(expected.index.weight(at), actual.index.weight(at), 0.0);
+        }
+    }
+
+    @Test
+    public void writeThenReadGivesTheSameSnapshot() throws IOException {
+        Path dir = tempDir();
+        try {
+            for (boolean rawTf : new boolean[]{false, true}) {
+                Snapshot written = TestPages.snapshot(1, 400, 6, rawTf);
+                Path file = dir.resolve("snapshot-" + rawTf + ".bin");
+                written.write(file);
+                assertSameSnapshot(written, Snapshot.read(file));
+                assertSameSnapshot(written, Snapshot.map(file));
+                assertEquals(0, Snapshot.read(file).journaled);
+            }
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    public void twoLevelClustersSurviveTheRoundTrip() throws IOException {
+        Snapshot flat = TestPages.snapshot(2, 200, 4, false);
+        Snapshot written = new Snapshot(flat.pages, flat.clusters, flat.centroids,
+                new SparseVector[]{flat.centroids[0], flat.centroids[2]}, new int[]{0, 0, 1, 1}, flat.tfidfCalc,
+                flat.index, false);
+        Path dir = tempDir();
+        try {
+            written.write(dir.resolve("snapshot.bin"));
+            Snapshot read = Snapshot.map(dir.resolve("snapshot.bin"));
+            assertSameSnapshot(written, read);
+            assertSameVector("group 1", written.groups[1], read.groups[1]);
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    public void queriesAnswerTheSameFromAReadOrAMappedFile() throws IOException {
+        Snapshot written = TestPages.snapshot(3, 300, 5, false);
+        Path dir = tempDir();
+        try {
+            written.write(dir.resolve("snapshot.bin"));
+            QueryEngine memory = new QueryEngine(written);
+            QueryEngine eager = QueryEngine.load(dir.resolve("snapshot.bin"), true);
+            QueryEngine mapped = QueryEngine.load(dir.resolve("snapshot.bin"), false);
+            for (int id = 0; id < 300; id += 7) {
+                QueryEngine.Answer want = memory.similarTo(id, 5, 2, 1);
+                for (QueryEngine engine : new QueryEngine[]{eager, mapped}) {
+                    QueryEngine.Answer got = engine.similarTo(id, 5, 2, 1);
+                    assertArrayEquals(want.probes(), got.probes());
+                    assertEquals(want.results().size(), got.results().size());
+                    for (int i = 0; i < want.results().size(); i++) {
+                        assertEquals(want.results().get(i).id(), got.results().get(i).id());
+                        assertEquals(want.results().get(i).score(), got.results().get(i).score(), 0.0);
+                    }
+                }
+            }
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    public void kPastThePageCountReturnsEveryHit() {
+        // a TopK of k slots would not fit in memory
+        QueryEngine engine = new QueryEngine(TestPages.snapshot(3, 300, 5, false));
+        QueryEngine.Answer all = engine.similarTo(0, Integer.MAX_VALUE, 2, 1);
+        QueryEngine.Answer best = engine.similarTo(0, 5, 2, 1);
+        assertTrue(all.results().size() > 5 && all.results().size() < 300);
+        for (int i = 0; i < 5; i++) assertEquals(best.results().get(i).id(), all.results().get(i).id());
+    }
+
+    @Test
+    public void otherFilesAreRejected() throws IOException {
+        Path dir = tempDir();
+        try {
+            Path file = dir.resolve("not-a-snapshot.bin");
+            Files.write(file, new byte[64]);
+            assertThrows(IOException.class, () -> Snapshot.read(file));
+            assertThrows(IOException.class, () -> Snapshot.map(file));
+            Files.write(file, new byte[0]);
+            assertThrows(IOException.class, () -> Snapshot.map(file));
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    public void pageRecordsPastTwoGigabytesAreRead() throws IOException {
+        //a sparse file: the page table at 0, one record 3 GB in
+        long at = 3L << 30;
+        SparseVector vector = SparseVector.of(new int[]{2, 5}, new double[]{3, 4}, 2);
+        Path dir = tempDir();
+        Path file = dir.resolve("big.bin");
+        try {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                Snapshot.Out out = new Snapshot.Out(channel);
+                out.skip(at);
+                out.putString("http://example.org/far").putString("Far away").putVector(vector);
+                out.flush();
+                ByteBuffer table = ByteBuffer.allocate(16).putLong(at).putLong(out.position()).flip();
+                channel.write(table, 0);
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+                 Arena arena = Arena.ofConfined()) {
+                Snapshot.MappedPages pages = new Snapshot.MappedPages(
+                        channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena), 0, 1);
+                WebData page = pages.get(0);
+                assertEquals("http://example.org/far", page.pageURL);
+                assertEquals("Far away", page.pageTitle);
+                assertSameVector("far page", vector, page.tfidfVector);
+                assertThrows(IndexOutOfBoundsException.class, () -> pages.get(1));
+            }
+        } finally {
+            delete(dir);
+        }
+    }
+}
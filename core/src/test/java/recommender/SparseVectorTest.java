@@ -0,0 +1,104 @@
+package recommender;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class SparseVectorTest {
+    //random vector over term ids [0, terms), about a third of them set
+    private static double[] dense(Random random, int terms) {
+        double[] d = new double[terms];
+        for (int i = 0; i < terms; i++) if (random.nextInt(3) == 0) d[i] = random.nextDouble() * 4 - 1;
+        return d;
+    }
+
+    private static double dot(double[] a, double[] b) {
+        double sum = 0.0;
+        for (int i = 0; i < a.length; i++) sum += a[i] * b[i];
+        return sum;
+    }
+
+    @Test
+    public void ofSortsPairsByTermId() {
+        SparseVector v = SparseVector.of(new int[]{7, 2, 9, 0, 99}, new double[]{0.7, 0.2, 0.9, 1.0, 5.0}, 4);
+        assertArrayEquals(new int[]{0, 2, 7, 9}, v.termIds);
+        assertArrayEquals(new double[]{1.0, 0.2, 0.7, 0.9}, v.weights, 0.0);
+    }
+
+    @Test
+    public void dotMatchesDenseDot() {
+        Random random = new Random(1);
+        for (int round = 0; round < 200; round++) {
+            double[] a = dense(random, 60), b = dense(random, 60);
+            assertEquals(dot(a, b), SparseVector.fromDense(a).dot(SparseVector.fromDense(b)), 1e-12);
+        }
+    }
+
+    @Test
+    public void dotOfDisjointOrEmptyVectorsIsZero() {
+        SparseVector even = SparseVector.of(new int[]{0, 2, 4}, new double[]{1, 1, 1}, 3);
+        SparseVector odd = SparseVector.of(new int[]{1, 3, 5}, new double[]{1, 1, 1}, 3);
+        SparseVector empty = SparseVector.fromDense(new double[8]);
+        assertEquals(0.0, even.dot(odd), 0.0);
+        assertEquals(0.0, even.dot(empty), 0.0);
+        assertEquals(0.0, Similarity.cosineSimilarity(even, empty), 0.0);
+    }
+
+    @Test
+    public void normalizedIsUnitAndKeepsScale() {
+        Random random = new Random(2);
+        for (int round = 0; round < 100; round++) {
+            SparseVector v = SparseVector.fromDense(dense(random, 40));
+            if (v.norm == 0.0) continue;
+            SparseVector unit = v.normalized();
+            assertTrue(unit.isUnit());
+            assertEquals(1.0, Math.sqrt(unit.dot(unit)), 1e-12);
+            assertEquals(v.norm, unit.scale, 1e-12);
+            for (int i = 0; i < v.size(); i++) assertEquals(v.weights[i], unit.weights[i] * unit.scale, 1e-12);
+            assertSame(unit, unit.normalized());
+        }
+        SparseVector zero = SparseVector.fromDense(new double[4]);
+        assertSame(zero, zero.normalized());
+    }
+
+    @Test
+    public void cosineIsTheSameBeforeAndAfterNormalizing() {
+        Random random = new Random(3);
+        for (int round = 0; round < 200; round++) {
+            double[] a = dense(random, 50), b = dense(random, 50);
+            SparseVector va = SparseVector.fromDense(a), vb = SparseVector.fromDense(b);
+            double expected = va.norm == 0.0 || vb.norm == 0.0 ? 0.0
+                    : dot(a, b) / Math.sqrt(dot(a, a) * dot(b, b));
+            assertEquals(expected, Similarity.cosineSimilarity(va, vb), 1e-12);
+            assertEquals(expected, Similarity.cosineSimilarity(va.normalized(), vb.normalized()), 1e-12);
+            assertEquals(expected, Similarity.cosineSimilarity(va.normalized(), vb), 1e-12);
+        }
+    }
+
+    @Test
+    public void topKeepsTheHeaviestTerms() {
+        SparseVector v = SparseVector.of(new int[]{0, 1, 2, 3}, new double[]{0.1, -3, 2, 0.5}, 4);
+        SparseVector top = v.top(2);
+        assertArrayEquals(new int[]{1, 2}, top.termIds);
+        assertTrue(top.isUnit());
+        assertSame(v, v.top(4));
+    }
+
+    @Test
+    public void dictionaryIdsAreDenseAndStable() {
+        TermDictionary dictionary = new TermDictionary();
+        Map<String, Integer> ids = new HashMap<>();
+        for (int i = 0; i < 3000; i++) ids.put("t" + i, dictionary.add("t" + i));
+        for (int i = 0; i < 3000; i++) {
+            int id = ids.get("t" + i);
+            assertEquals(i, id);
+            assertEquals(id, dictionary.add("t" + i));
+            assertEquals(id, dictionary.idOf("t" + i));
+            assertEquals("t" + i, dictionary.term(id));
+        }
+        assertEquals(3000, dictionary.size());
+        assertEquals(-1, dictionary.idOf("unseen"));
+    }
+}
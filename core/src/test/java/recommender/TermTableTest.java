@@ -0,0 +1,71 @@
+package recommender;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class TermTableTest {
+    //starts at 16 slots, 5000 keys is nine resizes
+    private static final int KEYS = 5000;
+
+    @Test
+    public void addKeepsEveryCountAcrossResizes() {
+        TermTable t = new TermTable();
+        //key i is added i % 7 + 1 times, the first add of each key is the one that can resize
+        for (int round = 0; round < 7; round++) {
+            for (int i = 0; i < KEYS; i++) {
+                if (i % 7 >= round) t.add("k" + i);
+            }
+        }
+        assertEquals(KEYS, t.size);
+        for (int i = 0; i < KEYS; i++) {
+            assertEquals("k" + i, i % 7 + 1, t.getCount("k" + i));
+        }
+    }
+
+    @Test
+    public void addCharsKeepsEveryCountAcrossResizes() {
+        TermTable t = new TermTable();
+        for (int i = 0; i < KEYS; i++) {
+            char[] chars = ("k" + i).toCharArray();
+            t.add(chars, chars.length);
+            t.add(chars, chars.length);
+        }
+        assertEquals(KEYS, t.size);
+        for (int i = 0; i < KEYS; i++) assertEquals("k" + i, 2, t.getCount("k" + i));
+    }
+
+    @Test
+    public void putAndAddValueKeepEveryValueAcrossResizes() {
+        TermTable t = new TermTable();
+        for (int i = 0; i < KEYS; i++) {
+            t.put("p" + i, i);
+            t.addValue("v" + i, 0.5);
+            t.add("n" + i, i + 1);
+        }
+        assertEquals(3 * KEYS, t.size);
+        for (int i = 0; i < KEYS; i++) {
+            assertEquals(i, t.get("p" + i), 0.0);
+            assertEquals(0.5, t.get("v" + i), 0.0);
+            assertEquals(i + 1, t.getCount("n" + i));
+        }
+        assertFalse(t.contains("missing"));
+        assertEquals(0.0, t.get("missing"), 0.0);
+    }
+
+    @Test
+    public void presizedTableMatchesGrownTable() {
+        TermTable grown = new TermTable();
+        TermTable sized = new TermTable(KEYS);
+        for (int i = 0; i < KEYS; i++) {
+            grown.put("k" + i, i);
+            sized.put("k" + i, i);
+        }
+        int used = 0;
+        for (int i = 0; i < grown.keys.length; i++) {
+            if (grown.keys[i] == null) continue;
+            used++;
+            assertEquals(grown.values[i], sized.get(grown.keys[i]), 0.0);
+        }
+        assertEquals(KEYS, used);
+    }
+}
@@ -0,0 +1,83 @@
+package recommender;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.UnaryOperator;
+
+//random pages for the tests; each page leans towards one of a few topics,
+//so k-means and the index have some structure to find
+class TestPages {
+    //unit vectors over term ids [0, terms)
+    static List<WebData> pages(long seed, int n, int terms, int topics) {
+        Random random = new Random(seed);
+        List<WebData> pages = new ArrayList<>(n);
+        for (int p = 0; p < n; p++) {
+            int topic = random.nextInt(topics), span = terms / topics;
+            int size = 3 + random.nextInt(12);
+            int[] ids = new int[size];
+            double[] weights = new double[size];
+            int m = 0;
+            for (int j = 0; j < size; j++) {
+                int id = random.nextInt(4) == 0 ? random.nextInt(terms) : topic * span + random.nextInt(span);
+                boolean seen = false;
+                for (int q = 0; q < m; q++) seen |= ids[q] == id;
+                if (seen) continue;
+                ids[m] = id;
+                weights[m++] = 0.1 + random.nextDouble();
+            }
+            pages.add(new WebData("http://test/" + p, "page " + p, SparseVector.of(ids, weights, m).normalized()));
+        }
+        return pages;
+    }
+
+    //"a", "b", ... "z", "ba", ...: letters only, so countWords keeps them as they are
+    static String word(int i) {
+        StringBuilder sb = new StringBuilder();
+        do {
+            sb.append((char) ('a' + i % 26));
+            i /= 26;
+        } while (i > 0);
+        return sb.toString();
+    }
+
+    static String text(Random random, int words, int vocabulary, int topics) {
+        int topic = random.nextInt(topics), span = vocabulary / topics;
+        StringBuilder sb = new StringBuilder();
+        for (int w = 0; w < words; w++) {
+            int i = random.nextInt(3) == 0 ? random.nextInt(vocabulary) : topic * span + random.nextInt(span);
+            sb.append(word(i)).append(' ');
+        }
+        return sb.toString();
+    }
+
+    //what Loader writes: TF-IDF (or raw TF) pages of random texts clustered into k, grouped by cluster
+    static Snapshot snapshot(long seed, int n, int k, boolean rawTf) {
+        Random random = new Random(seed);
+        TermDictionary dictionary = new TermDictionary();
+        TermTable wordDocCount = new TermTable();
+        List<TermTable> counts = new ArrayList<>();
+        for (int p = 0; p < n; p++) {
+            TermTable pageCounts = Similarity.countWords(text(random, 20 + random.nextInt(60), 400, 5));
+            counts.add(pageCounts);
+            for (String word : pageCounts.keys) {
+                if (word == null) continue;
+                wordDocCount.add(word);
+                dictionary.add(word);
+            }
+        }
+        TfidfCalculator tfidfCalc = new TfidfCalculator(wordDocCount, dictionary, n);
+        List<WebData> pages = new ArrayList<>();
+        for (int p = 0; p < n; p++) {
+            pages.add(new WebData("http://test/" + p, "page " + p, tfidfCalc.computeTfidf(counts.get(p), true)));
+        }
+        KMeans.Result result = new KMeans(dictionary.size(), 20, 1, seed, false, false, UnaryOperator.identity())
+                .cluster(pages, k);
+        if (rawTf) {
+            for (int p = 0; p < n; p++) pages.get(p).tfidfVector = tfidfCalc.computeTf(counts.get(p));
+        }
+        int[] clusters = InvertedIndex.groupByCluster(pages, result.assignments(), k);
+        return new Snapshot(pages, clusters, result.centroids(), new SparseVector[0], new int[0], tfidfCalc,
+                new InvertedIndex(pages, dictionary.size()), rawTf);
+    }
+}
@@ -0,0 +1,82 @@
+package recommender;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.Arrays;
+import java.util.Random;
+
+public class TopKTest {
+    @Test
+    public void sortReturnsTheBestScoresBestFirst() {
+        Random random = new Random(1);
+        for (int k : new int[]{1, 2, 5, 50}) {
+            double[] scores = new double[200];
+            TopK top = new TopK(k);
+            for (int id = 0; id < scores.length; id++) {
+                scores[id] = random.nextDouble();
+                top.offer(id, scores[id]);
+            }
+            double[] sorted = scores.clone();
+            Arrays.sort(sorted);
+            assertEquals(k, top.sort());
+            for (int i = 0; i < k; i++) {
+                assertEquals(sorted[sorted.length - 1 - i], top.scores[i], 0.0);
+                assertEquals(scores[top.ids[i]], top.scores[i], 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void fewerCandidatesThanK() {
+        TopK top = new TopK(5);
+        top.offer(3, 0.2);
+        top.offer(8, 0.9);
+        assertEquals(2, top.sort());
+        assertEquals(8, top.ids[0]);
+        assertEquals(3, top.ids[1]);
+        top.clear();
+        assertEquals(0, top.sort());
+    }
+
+    @Test
+    public void tiesAtTheCutKeepTheFirstOffered() {
+        TopK top = new TopK(3);
+        top.offer(0, 0.5);
+        top.offer(1, 0.9);
+        top.offer(2, 0.5);
+        top.offer(3, 0.5); //no better than the worst kept, dropped
+        top.offer(4, 0.1);
+        assertEquals(3, top.sort());
+        assertEquals(1, top.ids[0]);
+        assertEquals(0.5, top.scores[1], 0.0);
+        assertEquals(0.5, top.scores[2], 0.0);
+        int[] tied = {top.ids[1], top.ids[2]}; //ids 0 and 2 in either order
+        Arrays.sort(tied);
+        assertArrayEquals(new int[]{0, 2}, tied);
+    }
+
+    @Test
+    public void allEqualScores() {
+        TopK top = new TopK(4);
+        for (int id = 0; id < 10; id++) top.offer(id, 1.0);
+        assertEquals(4, top.sort());
+        int[] ids = Arrays.copyOf(top.ids, 4);
+        Arrays.sort(ids);
+        assertArrayEquals(new int[]{0, 1, 2, 3}, ids);
+    }
+
+    @Test
+    public void configRejectsTopKBelowOne() {
+        System.setProperty("app.topK", "0");
+        try {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                    () -> Config.positive("app.topK", 2));
+            assertEquals("app.topK must be at least 1, was 0", e.getMessage());
+            System.setProperty("app.topK", "4");
+            assertEquals(4, Config.positive("app.topK", 2));
+        } finally {
+            System.clearProperty("app.topK");
+        }
+        assertEquals(2, Config.positive("app.topK", 2));
+    }
+}
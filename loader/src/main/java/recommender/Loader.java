@@ -0,0 +1,441 @@
+package recommender;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.UnaryOperator;
+import java.util.stream.IntStream;
+
+class Loader {
+    static final int NUM_CLUSTERS = Config.positive("loader.k", 7);
+    static final int MAX_ITERATIONS = Config.positive("loader.maxIterations", 100);
+    // auto K: "min-max" clusters every K in the range in turn and keeps the best silhouette
+    // whose expected pages scanned per query fit the budget; the silhouette is measured on a sample
+    static final String AUTO_K = System.getProperty("loader.autoK");
+    static final int SCAN_BUDGET = Config.positive("loader.scanBudget", Integer.MAX_VALUE);
+    static final int SILHOUETTE_SAMPLE = Config.positive("loader.silhouetteSample", 2000);
+    // two-level clustering: each of the K clusters is split again into up to this many, 0 keeps one level
+    static final int SUB_CLUSTERS = Config.atLeast("loader.subClusters", 0, 0);
+    // k-means runs on the common ForkJoinPool unless started with -Dloader.sequential=true
+    static final boolean PARALLEL = !Boolean.getBoolean("loader.sequential");
+    // k-means++ seeding is drawn from this seed, run r of loader.restarts uses seed + r; the lowest inertia run is kept
+    static final long SEED = Long.getLong("loader.seed", 42);
+    static final int RESTARTS = Config.positive("loader.restarts", 1);
+    // Hamerly's bounds skip comparisons that cannot change a page's cluster; -Dloader.exhaustive=true compares all
+    static final boolean EXHAUSTIVE = Boolean.getBoolean("loader.exhaustive");
+    // centroid pruning, off by default: keep the top N terms and/or the terms holding this share of the norm
+    static final int CENTROID_TERMS = Config.atLeast("loader.centroidTerms", 0, 0);
+    static final double CENTROID_MASS = Double.parseDouble(System.getProperty("loader.centroidMass", "1.0"));
+    // page fetching: requests in flight overall and per host, timeout in ms, retries per URL
+    static final int FETCH_THREADS = Config.positive("loader.fetchThreads", 32);
+    static final int FETCH_PER_HOST = Config.positive("loader.fetchPerHost", 8);
+    static final int FETCH_TIMEOUT = Config.positive("loader.fetchTimeout", 10_000);
+    static final int FETCH_RETRIES = Config.atLeast("loader.fetchRetries", 2, 0);
+    // one url per line, resolved against the working directory
+    static final String URLS = System.getProperty("loader.urls", "urls");
+    // saved HTML directory or .zip/.tar/.tar.gz archive to read instead of fetching the urls file
+    static final String CORPUS = System.getProperty("loader.corpus");
+    // fetched pages are kept here and revalidated on the next run, -Dloader.cache= turns it off
+    static final String CACHE = System.getProperty("loader.cache", "cache");
+    // incremental update: files of URLs to add to / remove from the saved snapshot instead of a full build
+    static final String UPDATE_ADD = System.getProperty("loader.add");
+    static final String UPDATE_REMOVE = System.getProperty("loader.remove");
+    // share of pages changed since the last full weighting that triggers re-weighting every page
+    static final double DRIFT_THRESHOLD = Double.parseDouble(System.getProperty("loader.drift", "0.1"));
+    // k-means rounds run from the current centroids after an update, 0 keeps the clusters as they are
+    static final int RECLUSTER_ITERATIONS = Config.atLeast("loader.reclusterIterations", 0, 0);
+    static final Path SNAPSHOT = Path.of("data/snapshot.bin");
+    // store term frequencies and apply IDF when scoring, so adding pages never makes stored vectors stale
+    static final boolean QUERY_TIME_IDF = Boolean.getBoolean("loader.queryTimeIdf");
+
+    static List<WebData> pages = new ArrayList<>();
+    static List<TermTable> pageCounts = new ArrayList<>();
+    static TermTable wordDocCount = new TermTable();
+    static TermDictionary dictionary = new TermDictionary();
+    static int totalDocs = 0;
+
+    public static void main() {
+        if (UPDATE_ADD != null || UPDATE_REMOVE != null) {
+            updatePages();
+            return;
+        }
+        System.out.println("1. Loading pages");
+        loadPages();
+        TfidfCalculator tfidfCalc = new TfidfCalculator(wordDocCount, dictionary, totalDocs);
+
+        System.out.println("2. Calculating TF-IDF");
+        for (int i = 0; i < pages.size(); i++) {
+            pages.get(i).tfidfVector = tfidfCalc.computeTfidf(pageCounts.get(i), true);
+        }
+        System.out.println("3. Clustering (K=" + (AUTO_K == null ? NUM_CLUSTERS : AUTO_K) + ")");
+        KMeans.Result result = AUTO_K == null ? kmeans().cluster(pages, NUM_CLUSTERS) : chooseK();
+        if (CENTROID_TERMS > 0 || CENTROID_MASS < 1.0) reportPruning(result);
+        SparseVector[] groups = new SparseVector[0];
+        int[] parents = new int[0];
+        if (SUB_CLUSTERS > 1) {
+            System.out.println("   Splitting each cluster into up to " + SUB_CLUSTERS);
+            TwoLevel levels = splitClusters(result, SUB_CLUSTERS);
+            result = levels.clusters();
+            groups = levels.groups();
+            parents = levels.parents();
+        }
+        System.out.println("4. Saving data");
+        if (QUERY_TIME_IDF) {
+            for (int i = 0; i < pages.size(); i++) pages.get(i).tfidfVector = tfidfCalc.computeTf(pageCounts.get(i));
+        }
+        saveData(result.assignments(), result.centroids(), groups, parents, tfidfCalc, QUERY_TIME_IDF);
+        System.out.println("\nDone! Run Application");
+    }
+
+    static void loadPages() {
+        if (CORPUS != null) {
+            try {
+                LocalCorpus.readAll(Path.of(CORPUS), page -> addPage(page));
+            } catch (IOException e) {
+                System.err.println("Fatal: Could not read corpus " + CORPUS + ": " + e.getMessage());
+                System.exit(1);
+            }
+            return;
+        }
+        newFetcher().fetchAll(readUrls(URLS), page -> addPage(page));
+    }
+
+    static List<String> readUrls(String file) {
+        List<String> urls = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String url;
+            while ((url = reader.readLine()) != null) {
+                if (!url.trim().isEmpty()) urls.add(url.trim());
+            }
+        } catch (IOException e) {
+            System.err.println("Fatal: Could not read " + file + " file");
+            System.exit(1);
+        }
+        return urls;
+    }
+
+    static PageCache openCache() {
+        try {
+            if (!CACHE.isEmpty()) return new PageCache(Path.of(CACHE));
+        } catch (IOException e) {
+            System.err.println("Page cache disabled: " + e.getMessage());
+        }
+        return null;
+    }
+
+    static PageFetcher newFetcher() {
+        return new PageFetcher(FETCH_THREADS, FETCH_PER_HOST, FETCH_TIMEOUT, FETCH_RETRIES, openCache());
+    }
+
+    // the single merge step, pages arrive here in urls file order
+    static void addPage(PageFetcher.Page page) {
+        System.out.println(" - " + page.title());
+        pages.add(new WebData(page.url(), page.title(), null));
+        pageCounts.add(page.counts());
+        totalDocs++;
+        for (String word : page.counts().keys) {
+            if (word == null) continue;
+            wordDocCount.add(word);
+            dictionary.add(word);
+        }
+    }
+
+    // runs k-means again inside each cluster, one after another for the same memory reason as chooseK;
+    // the sub-clusters become the clusters pages are assigned to, numbered group by group, and the
+    // original clusters become their groups
+    static TwoLevel splitClusters(KMeans.Result top, int m) {
+        int k = top.centroids().length;
+        List<List<Integer>> members = new ArrayList<>();
+        for (int g = 0; g < k; g++) members.add(new ArrayList<>());
+        for (int i = 0; i < top.assignments().length; i++) members.get(top.assignments()[i]).add(i);
+        KMeans.Result[] parts = new KMeans.Result[k];
+        for (int g = 0; g < k; g++) {
+            List<WebData> group = members.get(g).stream().map(pages::get).toList();
+            if (!group.isEmpty()) parts[g] = kmeans().cluster(group, Math.min(m, group.size()));
+        }
+        List<SparseVector> centroids = new ArrayList<>();
+        List<Integer> parents = new ArrayList<>();
+        int[] assignments = new int[top.assignments().length];
+        for (int g = 0; g < k; g++) {
+            if (parts[g] == null) { // an empty group keeps one empty cluster
+                centroids.add(top.centroids()[g]);
+                parents.add(g);
+                continue;
+            }
+            int base = centroids.size();
+            for (SparseVector centroid : parts[g].centroids()) {
+                centroids.add(centroid);
+                parents.add(g);
+            }
+            for (int j = 0; j < members.get(g).size(); j++) assignments[members.get(g).get(j)] = base + parts[g].assignments()[j];
+        }
+        return new TwoLevel(new KMeans.Result(assignments, centroids.toArray(new SparseVector[0])), top.centroids(),
+                parents.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    // clusters every K in AUTO_K and reports how tight, how separated and how costly to query each is.
+    // One K at a time, each run parallel inside: runs side by side would each hold K dense sums of
+    // dictionary size, gigabytes over a wide range on a real vocabulary
+    static KMeans.Result chooseK() {
+        String[] bounds = AUTO_K.split("-");
+        int from = Math.max(2, Integer.parseInt(bounds[0].trim()));
+        int to = Math.min(pages.size(), Integer.parseInt(bounds[bounds.length - 1].trim()));
+        if (from > to) throw new IllegalArgumentException("Bad loader.autoK range: " + AUTO_K);
+        int[] sample = sample(Math.min(SILHOUETTE_SAMPLE, pages.size()), pages.size(), new Random(SEED));
+        double[] inertia = new double[to - from + 1], silhouette = new double[inertia.length], scan = new double[inertia.length];
+        KMeans.Result best = null;
+        int bestK = -1;
+        for (int k = from; k <= to; k++) {
+            int r = k - from;
+            KMeans.Result result = kmeans().cluster(pages, k);
+            inertia[r] = KMeans.inertia(pages, result);
+            silhouette[r] = silhouette(result, sample);
+            scan[r] = pagesPerQuery(result);
+            // only one run is kept: the best that fits the budget, or while none does the largest K,
+            // which scans the fewest pages
+            boolean fits = scan[r] <= SCAN_BUDGET, bestFits = best != null && scan[bestK - from] <= SCAN_BUDGET;
+            if (fits ? !bestFits || silhouette[r] > silhouette[bestK - from] : !bestFits) {
+                best = result;
+                bestK = k;
+            }
+        }
+        System.out.println("    K      inertia  silhouette  pages/query");
+        for (int r = 0; r < inertia.length; r++) {
+            System.out.printf("%5d %12.2f %11.4f %12.1f%n", from + r, inertia[r], silhouette[r], scan[r]);
+        }
+        if (scan[bestK - from] > SCAN_BUDGET) {
+            System.out.println("No K fits the budget of " + SCAN_BUDGET + " pages per query");
+        }
+        System.out.println("Using K=" + bestK);
+        return best;
+    }
+
+    // n distinct page ids out of size, the first n of a seeded Fisher-Yates shuffle
+    static int[] sample(int n, int size, Random random) {
+        int[] ids = IntStream.range(0, size).toArray();
+        for (int i = 0; i < n; i++) {
+            int j = i + random.nextInt(size - i);
+            int id = ids[i];
+            ids[i] = ids[j];
+            ids[j] = id;
+        }
+        return Arrays.copyOf(ids, n);
+    }
+
+    // simplified silhouette with 1 - cosine against the centroids, averaged over the sampled pages
+    static double silhouette(KMeans.Result result, int[] sample) {
+        double sum = 0;
+        for (int i : sample) {
+            SparseVector page = pages.get(i).tfidfVector;
+            int own = result.assignments()[i];
+            double a = 1 - Similarity.unitSimilarity(page, result.centroids()[own]);
+            double b = Double.POSITIVE_INFINITY;
+            for (int c = 0; c < result.centroids().length; c++) {
+                if (c != own && result.centroids()[c].size() > 0) {
+                    b = Math.min(b, 1 - Similarity.unitSimilarity(page, result.centroids()[c]));
+                }
+            }
+            double spread = Math.max(a, b);
+            if (b < Double.POSITIVE_INFINITY && spread > 0) sum += (b - a) / spread;
+        }
+        return sample.length == 0 ? 0 : sum / sample.length;
+    }
+
+    // pages Application scores per query when queries fall into clusters as often as pages do
+    static double pagesPerQuery(KMeans.Result result) {
+        long[] members = new long[result.centroids().length];
+        for (int cluster : result.assignments()) members[cluster]++;
+        double squares = 0;
+        for (long m : members) squares += (double) m * m;
+        return pages.isEmpty() ? 0 : squares / pages.size();
+    }
+
+    // read at each use, the dictionary grows with the pages
+    static KMeans kmeans() {
+        return new KMeans(dictionary.size(), MAX_ITERATIONS, RESTARTS, SEED, PARALLEL, EXHAUSTIVE, Loader::pruneCentroid);
+    }
+
+    static SparseVector pruneCentroid(SparseVector centroid) {
+        if (CENTROID_TERMS > 0) centroid = centroid.top(CENTROID_TERMS);
+        if (CENTROID_MASS < 1.0) centroid = centroid.covering(CENTROID_MASS);
+        return centroid;
+    }
+
+    // compares the pruned run against full centroids rebuilt from the same assignments
+    static void reportPruning(KMeans.Result result) {
+        int k = result.centroids().length;
+        SparseVector[] full = new SparseVector[k];
+        CentroidAccumulator.build(pages, result.assignments(), k, dictionary.size(), PARALLEL)
+                .refresh(full, UnaryOperator.identity());
+        IntStream range = IntStream.range(0, pages.size());
+        if (PARALLEL) range = range.parallel();
+        long agree = range.filter(i -> KMeans.nearestCentroid(pages.get(i).tfidfVector, full) == result.assignments()[i]).count();
+        long fullTerms = 0, prunedTerms = 0;
+        for (int c = 0; c < k; c++) {
+            fullTerms += full[c].size();
+            prunedTerms += result.centroids()[c].size();
+        }
+        System.out.printf("Pruned centroids: %d of %d terms kept, %.2f%% of pages agree with full centroids%n",
+                prunedTerms, fullTerms, pages.isEmpty() ? 100.0 : 100.0 * agree / pages.size());
+    }
+
+    // applies loader.add / loader.remove to the saved snapshot through its journal
+    static void updatePages() {
+        try {
+            Snapshot snapshot = Snapshot.read(SNAPSHOT);
+            pages = new ArrayList<>(snapshot.pages);
+            dictionary = snapshot.tfidfCalc.dictionary();
+            wordDocCount = snapshot.tfidfCalc.wordDocCount();
+            totalDocs = snapshot.tfidfCalc.totalDocs();
+            SparseVector[] centroids = snapshot.centroids;
+            List<Integer> clusters = new ArrayList<>();
+            Map<String, Integer> live = new HashMap<>();
+            for (int i = 0; i < pages.size(); i++) {
+                clusters.add(snapshot.clusters[i]);
+                if (snapshot.clusters[i] >= 0) live.put(pages.get(i).pageURL, i);
+            }
+            int changed = 0;
+            try (Journal journal = new Journal(SNAPSHOT)) {
+                for (String url : UPDATE_REMOVE == null ? List.<String>of() : readUrls(UPDATE_REMOVE)) {
+                    Integer id = live.remove(url);
+                    if (id == null) {
+                        System.err.println(" Not in snapshot: " + url);
+                        continue;
+                    }
+                    for (int termId : pages.get(id).tfidfVector.termIds) wordDocCount.add(dictionary.term(termId), -1);
+                    totalDocs--;
+                    clusters.set(id, -1);
+                    journal.removed(id);
+                    changed++;
+                }
+                List<String> urls = UPDATE_ADD == null ? List.of() : readUrls(UPDATE_ADD);
+                List<PageFetcher.Page> fetched = new ArrayList<>();
+                newFetcher().fetchAll(urls.stream().filter(url -> !live.containsKey(url)).distinct().toList(), fetched::add);
+                for (PageFetcher.Page page : fetched) {
+                    for (String word : page.counts().keys) {
+                        if (word == null) continue;
+                        if (dictionary.idOf(word) < 0) journal.term(word);
+                        dictionary.add(word);
+                        wordDocCount.add(word);
+                    }
+                    totalDocs++;
+                }
+                // new pages use the document counts as they are now, older pages keep theirs
+                TfidfCalculator tfidfCalc = new TfidfCalculator(wordDocCount, dictionary, totalDocs);
+                for (PageFetcher.Page page : fetched) {
+                    SparseVector tfidf = tfidfCalc.computeTfidf(page.counts(), true);
+                    SparseVector stored = snapshot.rawTf ? tfidfCalc.computeTf(page.counts()) : tfidf;
+                    WebData added = new WebData(page.url(), page.title(), stored);
+                    int cluster = KMeans.nearestCentroid(tfidf, centroids);
+                    System.out.println(" + " + page.title() + " -> cluster " + cluster);
+                    live.put(page.url(), pages.size());
+                    pages.add(added);
+                    clusters.add(cluster);
+                    journal.page(added, cluster);
+                    changed++;
+                }
+            }
+            double drift = (double) (snapshot.journaled + changed) / Math.max(1, totalDocs);
+            System.out.printf("%d pages changed, %.1f%% since the last full weighting%n", changed, 100 * drift);
+            if (drift > DRIFT_THRESHOLD || RECLUSTER_ITERATIONS > 0) {
+                rebuild(clusters, snapshot);
+            }
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+        }
+    }
+
+    // drops removed pages, re-weights every page with the current document counts and rewrites
+    // the snapshot; word counts come from the page cache, pages missing from it are fetched again.
+    // Raw term frequency snapshots need no counts, IDF is applied to the stored frequencies.
+    static void rebuild(List<Integer> clusters, Snapshot snapshot) {
+        boolean rawTf = snapshot.rawTf;
+        System.out.println(rawTf ? "Compacting snapshot" : "Re-weighting all pages");
+        List<WebData> kept = new ArrayList<>();
+        List<Integer> keptClusters = new ArrayList<>();
+        for (int i = 0; i < pages.size(); i++) {
+            if (clusters.get(i) < 0) continue;
+            kept.add(pages.get(i));
+            keptClusters.add(clusters.get(i));
+        }
+        Map<String, TermTable> counts = rawTf ? Map.of() : wordCounts(kept);
+        pages = new ArrayList<>();
+        int[] assignments = new int[kept.size()];
+        for (int i = 0; i < kept.size(); i++) {
+            WebData page = kept.get(i);
+            if (!rawTf && !counts.containsKey(page.pageURL)) { // could not be fetched again, dropped
+                for (int termId : page.tfidfVector.termIds) wordDocCount.add(dictionary.term(termId), -1);
+                totalDocs--;
+                continue;
+            }
+            assignments[pages.size()] = keptClusters.get(i);
+            pages.add(page);
+        }
+        assignments = Arrays.copyOf(assignments, pages.size());
+        TfidfCalculator tfidfCalc = new TfidfCalculator(wordDocCount, dictionary, totalDocs);
+        List<SparseVector> termFrequencies = new ArrayList<>();
+        for (WebData page : pages) {
+            if (rawTf) {
+                termFrequencies.add(page.tfidfVector);
+                page.tfidfVector = tfidfCalc.weigh(page.tfidfVector, true);
+            } else {
+                page.tfidfVector = tfidfCalc.computeTfidf(counts.get(page.pageURL), true);
+            }
+        }
+
+        SparseVector[] centroids = snapshot.centroids.clone();
+        CentroidAccumulator.build(pages, assignments, centroids.length, dictionary.size(), PARALLEL)
+                .refresh(centroids, Loader::pruneCentroid);
+        KMeans.Result result = RECLUSTER_ITERATIONS > 0
+                ? kmeans().cluster(pages, centroids, assignments, RECLUSTER_ITERATIONS)
+                : new KMeans.Result(assignments, centroids);
+        if (rawTf) {
+            for (int i = 0; i < pages.size(); i++) pages.get(i).tfidfVector = termFrequencies.get(i);
+        }
+        // groups keep their centroids, the clusters under them only move a little between builds
+        saveData(result.assignments(), result.centroids(), snapshot.groups, snapshot.parents, tfidfCalc, rawTf);
+    }
+
+    // word counts by URL from the page cache, pages it does not have are fetched again
+    static Map<String, TermTable> wordCounts(List<WebData> pages) {
+        PageCache cache = openCache();
+        Map<String, TermTable> counts = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (WebData page : pages) {
+            try {
+                if (cache != null && cache.lookup(page.pageURL) != null) counts.put(page.pageURL, cache.counts(page.pageURL));
+                else missing.add(page.pageURL);
+            } catch (IOException e) {
+                missing.add(page.pageURL);
+            }
+        }
+        newFetcher().fetchAll(missing, page -> counts.put(page.url(), page.counts()));
+        return counts;
+    }
+
+    // rawTf: page vectors are plain term frequencies and IDF is applied at query time
+    // groups and parents describe the upper level of a two-level clustering, both empty when flat
+    static void saveData(int[] clusters, SparseVector[] centroids, SparseVector[] groups, int[] parents,
+                         TfidfCalculator tfidfCalc, boolean rawTf) {
+        try {
+            Files.createDirectories(SNAPSHOT.getParent());
+            int[] sortedClusters = InvertedIndex.groupByCluster(pages, clusters, centroids.length);
+            InvertedIndex index = new InvertedIndex(pages, dictionary.size());
+            new Snapshot(pages, sortedClusters, centroids, groups, parents, tfidfCalc, index, rawTf).write(SNAPSHOT);
+            Files.deleteIfExists(Journal.logOf(SNAPSHOT)); // the snapshot now holds everything
+            System.out.println("Saved " + pages.size() + " pages, centroids, TfidfCalculator and inverted index");
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+        }
+    }
+
+    record TwoLevel(KMeans.Result clusters, SparseVector[] groups, int[] parents) {}
+}
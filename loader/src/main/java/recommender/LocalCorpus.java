@@ -0,0 +1,132 @@
+package recommender;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Reads saved HTML pages from a directory, a .zip or a .tar / .tar.gz / .tgz archive
+ * instead of fetching them. Files are parsed on worker threads and handed to the merge
+ * step in a fixed order (sorted paths, or archive order), so a rebuild from the same
+ * corpus always produces the same pages.
+ */
+class LocalCorpus {
+    private final ExecutorService parsers;
+    private final ArrayDeque<Future<PageFetcher.Page>> window = new ArrayDeque<>();
+    private final ArrayDeque<String> names = new ArrayDeque<>();
+    private final int windowSize;
+    private final Consumer<PageFetcher.Page> merge;
+
+    private LocalCorpus(Consumer<PageFetcher.Page> merge) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        this.parsers = Executors.newFixedThreadPool(threads);
+        this.windowSize = 4 * threads; // bounds how many parsed pages wait for the merge
+        this.merge = merge;
+    }
+
+    static void readAll(Path source, Consumer<PageFetcher.Page> merge) throws IOException {
+        LocalCorpus corpus = new LocalCorpus(merge);
+        try {
+            String name = source.getFileName().toString().toLowerCase();
+            if (Files.isDirectory(source)) corpus.readDirectory(source);
+            else if (name.endsWith(".zip")) corpus.readZip(source);
+            else if (name.endsWith(".tar")) corpus.readTar(Files.newInputStream(source));
+            else if (name.endsWith(".tar.gz") || name.endsWith(".tgz")) {
+                corpus.readTar(new GZIPInputStream(Files.newInputStream(source)));
+            } else throw new IOException("Not a directory or .zip/.tar/.tar.gz archive: " + source);
+            while (!corpus.window.isEmpty()) corpus.mergeOldest();
+        } finally {
+            corpus.parsers.shutdownNow();
+        }
+    }
+
+    private void readDirectory(Path dir) throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(dir)) {
+            files = walk.filter(Files::isRegularFile).filter(p -> isHtml(p.toString())).sorted().toList();
+        }
+        for (Path file : files) submit(file.toString(), Files.readAllBytes(file));
+    }
+
+    private void readZip(Path archive) throws IOException {
+        try (ZipInputStream zip = new ZipInputStream(new BufferedInputStream(Files.newInputStream(archive)))) {
+            for (ZipEntry entry; (entry = zip.getNextEntry()) != null; ) {
+                if (!entry.isDirectory() && isHtml(entry.getName())) submit(entry.getName(), zip.readAllBytes());
+            }
+        }
+    }
+
+    // plain ustar: 512 byte headers, octal sizes, data padded to 512 bytes
+    private void readTar(InputStream raw) throws IOException {
+        try (InputStream in = new BufferedInputStream(raw)) {
+            byte[] header = new byte[512];
+            while (in.readNBytes(header, 0, 512) == 512 && header[0] != 0) {
+                String name = field(header, 0, 100);
+                String prefix = field(header, 345, 155);
+                if (!prefix.isEmpty()) name = prefix + "/" + name;
+                String sizeField = field(header, 124, 12).trim();
+                long size = sizeField.isEmpty() ? 0 : Long.parseLong(sizeField, 8);
+                byte type = header[156];
+                byte[] data = in.readNBytes(Math.toIntExact(size));
+                in.skipNBytes((512 - size % 512) % 512);
+                if ((type == '0' || type == 0) && isHtml(name)) submit(name, data);
+            }
+        }
+    }
+
+    private static String field(byte[] header, int from, int len) {
+        int end = from;
+        while (end < from + len && header[end] != 0) end++;
+        return new String(header, from, end - from, StandardCharsets.US_ASCII);
+    }
+
+    private static boolean isHtml(String name) {
+        String n = name.toLowerCase();
+        return n.endsWith(".html") || n.endsWith(".htm");
+    }
+
+    private void submit(String name, byte[] html) {
+        if (window.size() == windowSize) mergeOldest();
+        names.add(name);
+        window.add(parsers.submit(() -> parse(name, html)));
+    }
+
+    private void mergeOldest() {
+        String name = names.poll();
+        try {
+            merge.accept(window.poll().get());
+        } catch (ExecutionException e) {
+            System.err.println(" Failed: " + name);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading " + name, e);
+        }
+    }
+
+    // the saved page's canonical link is its URL when it has one, else the file name
+    private static PageFetcher.Page parse(String name, byte[] html) throws IOException {
+        Document doc = Jsoup.parse(new ByteArrayInputStream(html), null, "");
+        Element canonical = doc.selectFirst("link[rel=canonical]");
+        String url = canonical != null && !canonical.attr("href").isEmpty() ? canonical.attr("href") : name;
+        return new PageFetcher.Page(url, doc.title(), Similarity.countWords(doc.body().text()));
+    }
+}
@@ -0,0 +1,133 @@
+package recommender;
+
+import org.jsoup.Jsoup;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Properties;
+
+/**
+ * Fetched pages on disk, keyed by the SHA-256 of the URL. Each entry keeps the raw HTML,
+ * the validators to revalidate with (ETag, Last-Modified), the title and the word counts,
+ * so a page answered with 304 Not Modified is neither parsed nor tokenized again.
+ * Files are written to a temp name and moved into place, a half written entry is never read.
+ * <p>
+ * The counts file starts with {@link #MAGIC} and {@link #VERSION}; each word is an int byte
+ * length plus UTF-8 bytes, then its count. Counts written by another version, including the
+ * headerless files of the first one, are rebuilt from the stored HTML on first read.
+ */
+class PageCache {
+    static final int MAGIC = 0x50474331; // "PGC1"
+    // bump when the counts layout or the words Similarity.countWords produces change
+    static final int VERSION = 2;
+
+    record Entry(String url, String etag, String lastModified, String title, String charset) {}
+
+    private final Path dir;
+
+    PageCache(Path dir) throws IOException {
+        this.dir = Files.createDirectories(dir);
+    }
+
+    // null when the URL was never cached
+    Entry lookup(String url) throws IOException {
+        Path meta = file(url, ".meta");
+        if (!Files.exists(meta)) return null;
+        Properties p = new Properties();
+        try (InputStream in = Files.newInputStream(meta)) {
+            p.load(in);
+        }
+        return new Entry(p.getProperty("url"), p.getProperty("etag"), p.getProperty("lastModified"),
+                p.getProperty("title", ""), p.getProperty("charset"));
+    }
+
+    TermTable counts(String url) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file(url, ".counts"))))) {
+            if (in.readInt() == MAGIC && in.readInt() == VERSION) {
+                int n = in.readInt();
+                TermTable counts = new TermTable(n);
+                for (int i = 0; i < n; i++) {
+                    byte[] word = new byte[in.readInt()];
+                    in.readFully(word);
+                    counts.add(new String(word, StandardCharsets.UTF_8), in.readInt());
+                }
+                return counts;
+            }
+        }
+        return recount(url);
+    }
+
+    // tokenizes the stored HTML again and replaces the stale counts
+    private TermTable recount(String url) throws IOException {
+        Entry entry = lookup(url);
+        if (entry == null) throw new IOException("Not cached: " + url);
+        TermTable counts;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file(url, ".html")))) {
+            counts = Similarity.countWords(Jsoup.parse(in, entry.charset(), url).body().text());
+        }
+        write(file(url, ".counts"), out -> writeCounts(out, counts));
+        return counts;
+    }
+
+    // charset is the one the HTML was decoded with, null to detect it again from the page
+    void store(String url, String etag, String lastModified, String title, String charset, byte[] html,
+               TermTable counts) throws IOException {
+        write(file(url, ".html"), out -> out.write(html));
+        write(file(url, ".counts"), out -> writeCounts(out, counts));
+        Properties p = new Properties();
+        p.setProperty("url", url);
+        p.setProperty("title", title);
+        if (etag != null) p.setProperty("etag", etag);
+        if (lastModified != null) p.setProperty("lastModified", lastModified);
+        if (charset != null) p.setProperty("charset", charset);
+        write(file(url, ".meta"), out -> p.store(out, null)); // last, it marks the entry complete
+    }
+
+    private static void writeCounts(OutputStream raw, TermTable counts) throws IOException {
+        DataOutputStream out = new DataOutputStream(raw);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(counts.size);
+        for (int i = 0; i < counts.keys.length; i++) {
+            if (counts.keys[i] == null) continue;
+            byte[] word = counts.keys[i].getBytes(StandardCharsets.UTF_8);
+            out.writeInt(word.length);
+            out.write(word);
+            out.writeInt(counts.counts[i]);
+        }
+        out.flush();
+    }
+
+    private interface Body {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private static void write(Path target, Body body) throws IOException {
+        Path tmp = Files.createTempFile(target.getParent(), "part", ".tmp");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+            body.writeTo(out);
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path file(String url, String suffix) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+            return dir.resolve(HexFormat.of().formatHex(hash) + suffix);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // every JDK ships SHA-256
+        }
+    }
+}
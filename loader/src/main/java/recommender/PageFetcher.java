@@ -0,0 +1,138 @@
+package recommender;
+
+import org.jsoup.Connection;
+import org.jsoup.HttpStatusException;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+/**
+ * Fetches and tokenizes pages on virtual threads. At most maxConcurrent requests are in
+ * flight overall and maxPerHost per host, failed requests are retried with a doubling pause
+ * during which the request holds no permit. Pages are handed to the merge step on the
+ * calling thread in the order the URLs were given, whatever order they finished in.
+ * With a {@link PageCache} a cached page is revalidated with If-None-Match /
+ * If-Modified-Since and, when unchanged, its stored word counts are used as they are.
+ */
+class PageFetcher {
+    record Page(String url, String title, TermTable counts) {}
+
+    private final Semaphore inFlight;
+    private final int maxConcurrent;
+    private final Map<String, Semaphore> hosts = new ConcurrentHashMap<>();
+    private final int maxPerHost;
+    private final int timeoutMillis;
+    private final int retries;
+    private final PageCache cache;
+
+    // cache may be null
+    PageFetcher(int maxConcurrent, int maxPerHost, int timeoutMillis, int retries, PageCache cache) {
+        this.inFlight = new Semaphore(maxConcurrent);
+        this.maxConcurrent = maxConcurrent;
+        this.maxPerHost = maxPerHost;
+        this.timeoutMillis = timeoutMillis;
+        this.retries = retries;
+        this.cache = cache;
+    }
+
+    // failures are reported and skipped, like the sequential loop did. Only URLs up to
+    // 2 * maxConcurrent past the one being merged are started, so a long list does not park a
+    // thread per URL on the semaphores, nor keep more finished pages waiting on a slow one
+    void fetchAll(List<String> urls, Consumer<Page> merge) {
+        int ahead = 2 * maxConcurrent;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            ArrayDeque<Future<Page>> pending = new ArrayDeque<>();
+            int submitted = 0;
+            for (int i = 0; i < urls.size(); i++) {
+                for (; submitted < urls.size() && submitted <= i + ahead; submitted++) {
+                    String url = urls.get(submitted);
+                    pending.add(executor.submit(() -> fetch(url)));
+                }
+                try {
+                    merge.accept(pending.poll().get());
+                } catch (ExecutionException e) {
+                    System.err.println(" Failed: " + urls.get(i));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    executor.shutdownNow();
+                    return;
+                }
+            }
+        }
+    }
+
+    Page fetch(String url) throws IOException, InterruptedException {
+        PageCache.Entry cached = cache == null ? null : cache.lookup(url);
+        Connection.Response response = download(url, cached);
+        if (response.statusCode() == 304 && cached != null) {
+            return new Page(url, cached.title(), cache.counts(url));
+        }
+        byte[] html = response.bodyAsBytes();
+        Document doc = Jsoup.parse(new ByteArrayInputStream(html), response.charset(), url);
+        Page page = new Page(url, doc.title(), Similarity.countWords(doc.body().text()));
+        if (cache != null) {
+            cache.store(url, response.header("ETag"), response.header("Last-Modified"), page.title(),
+                    response.charset(), html, page.counts());
+        }
+        return page;
+    }
+
+    // a 2xx or 304 response; 5xx, 429 and I/O errors are retried, other statuses fail at once
+    private Connection.Response download(String url, PageCache.Entry cached) throws IOException, InterruptedException {
+        Semaphore host = hosts.computeIfAbsent(hostOf(url), _ -> new Semaphore(maxPerHost));
+        for (int attempt = 0; ; attempt++) {
+            if (attempt > 0) Thread.sleep(250L << (attempt - 1)); // permits are free while waiting
+            Connection request = Jsoup.connect(url).timeout(timeoutMillis).ignoreHttpErrors(true);
+            if (cached != null && cached.etag() != null) request.header("If-None-Match", cached.etag());
+            if (cached != null && cached.lastModified() != null) request.header("If-Modified-Since", cached.lastModified());
+            Connection.Response response;
+            try {
+                response = execute(request, host);
+            } catch (IOException e) {
+                if (attempt >= retries) throw e;
+                continue;
+            }
+            int status = response.statusCode();
+            if (status < 300 || status == 304) return response;
+            boolean retryable = status >= 500 || status == 429;
+            if (!retryable || attempt >= retries) throw new HttpStatusException("HTTP error fetching URL", status, url);
+        }
+    }
+
+    // one request under both permits; the body is read before they are given back
+    private Connection.Response execute(Connection request, Semaphore host) throws IOException, InterruptedException {
+        host.acquire();
+        try {
+            inFlight.acquire();
+            try {
+                return request.execute().bufferUp();
+            } finally {
+                inFlight.release();
+            }
+        } finally {
+            host.release();
+        }
+    }
+
+    private static String hostOf(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host == null ? "" : host;
+        } catch (IllegalArgumentException e) {
+            return "";
+        }
+    }
+}
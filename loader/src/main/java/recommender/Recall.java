@@ -0,0 +1,94 @@
+package recommender;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+class Recall {
+    // recall@K of routed queries against scoring every page, for 1 up to recall.maxProbes probes;
+    // queries are sampled pages, the page itself is left out of both result lists
+    static final int QUERIES = Integer.getInteger("recall.queries", 200);
+    static final int TOP = Integer.getInteger("recall.topK", 10);
+    static final int MAX_PROBES = Integer.getInteger("recall.maxProbes", 4);
+    static final int GROUP_PROBES = Integer.getInteger("app.groupProbes", 1);
+    static final long SEED = Long.getLong("loader.seed", 42);
+
+    public static void main() {
+        Snapshot snapshot;
+        try {
+            snapshot = Snapshot.map(Path.of("data/snapshot.bin"));
+        } catch (IOException e) {
+            System.err.println("Could not load data/snapshot.bin, run Loader first: " + e.getMessage());
+            return;
+        }
+        QueryTimeIdf idf = snapshot.rawTf ? new QueryTimeIdf(snapshot.tfidfCalc, snapshot.pages) : null;
+        ClusterRouter router = new ClusterRouter(snapshot);
+        InvertedIndex.Layout layout = InvertedIndex.Layout.of(snapshot.clusters, snapshot.centroids.length);
+        // removed pages (cluster -1) are never sampled
+        int[] live = IntStream.range(0, snapshot.pages.size()).filter(p -> snapshot.clusters[p] >= 0).toArray();
+        if (live.length == 0) {
+            System.err.println("No pages left in data/snapshot.bin");
+            return;
+        }
+        int[] queries = new Random(SEED).ints(QUERIES, 0, live.length).map(i -> live[i]).toArray();
+        SparseVector[] vectors = new SparseVector[queries.length];
+        int[][] exact = new int[queries.length][];
+        for (int q = 0; q < queries.length; q++) {
+            SparseVector vector = snapshot.pages.get(queries[q]).tfidfVector;
+            vectors[q] = snapshot.rawTf ? snapshot.tfidfCalc.weigh(vector, true) : vector;
+        }
+        for (SparseVector vector : vectors) snapshot.index.score(vector, snapshot.clusters, -1, idf); // warm-up
+        long start = System.nanoTime();
+        for (int q = 0; q < queries.length; q++) {
+            exact[q] = top(snapshot.index.score(vectors[q], snapshot.clusters, -1, idf), queries[q]);
+        }
+        System.out.printf("%d queries, %d clusters%s, every page: %.1f us/query%n", queries.length,
+                snapshot.centroids.length, snapshot.groups.length > 0 ? " in " + snapshot.groups.length + " groups" : "",
+                (System.nanoTime() - start) / 1e3 / Math.max(1, queries.length));
+        System.out.println("probes  recall@" + TOP + "  pages scored  us/query");
+        for (int probes = 1; probes <= Math.min(MAX_PROBES, snapshot.centroids.length); probes++) {
+            for (int q = 0; q < queries.length; q++) { // warm-up
+                snapshot.index.score(vectors[q], snapshot.clusters, router.route(vectors[q], probes, GROUP_PROBES), layout, idf);
+            }
+            double recall = 0;
+            long scored = 0, nanos = 0;
+            for (int q = 0; q < queries.length; q++) {
+                long t = System.nanoTime();
+                int[] clusters = router.route(vectors[q], probes, GROUP_PROBES);
+                InvertedIndex.Hits hits = snapshot.index.score(vectors[q], snapshot.clusters, clusters, layout, idf);
+                int[] found = top(hits, queries[q]);
+                nanos += System.nanoTime() - t;
+                scored += hits.pages().length;
+                recall += overlap(exact[q], found);
+            }
+            int n = Math.max(1, queries.length);
+            System.out.printf("%6d %10.3f %13.1f %9.1f%n", probes, recall / n, (double) scored / n, nanos / 1e3 / n);
+        }
+    }
+
+    // ids of the TOP best hits, leaving out the query's own page
+    static int[] top(InvertedIndex.Hits hits, int self) {
+        TopK top = new TopK(TOP);
+        for (int k = 0; k < hits.pages().length; k++) {
+            if (hits.pages()[k] != self) top.offer(hits.pages()[k], hits.scores()[k]);
+        }
+        return Arrays.copyOf(top.ids, top.sort());
+    }
+
+    // share of the exact results that were found, 1 when there were none to find
+    static double overlap(int[] exact, int[] found) {
+        if (exact.length == 0) return 1;
+        int hits = 0;
+        for (int id : exact) {
+            for (int f : found) {
+                if (f == id) {
+                    hits++;
+                    break;
+                }
+            }
+        }
+        return (double) hits / exact.length;
+    }
+}
@@ -0,0 +1,29 @@
+package recommender;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.Arrays;
+import java.util.Random;
+
+public class LoaderTest {
+    @Test
+    public void silhouetteSampleHasNoRepeats() {
+        for (int size : new int[]{1, 10, 2500}) {
+            int n = Math.min(2000, size);
+            int[] sample = Loader.sample(n, size, new Random(42));
+            assertEquals(n, sample.length);
+            int[] sorted = sample.clone();
+            Arrays.sort(sorted);
+            for (int i = 0; i < n; i++) {
+                assertTrue(sorted[i] >= 0 && sorted[i] < size);
+                if (i > 0) assertTrue(sorted[i] != sorted[i - 1]);
+            }
+            //the same seed picks the same pages
+            assertArrayEquals(sample, Loader.sample(n, size, new Random(42)));
+        }
+        //a sample as large as the corpus is every page
+        int[] all = Loader.sample(10, 10, new Random(1));
+        Arrays.sort(all);
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9}, all);
+    }
+}
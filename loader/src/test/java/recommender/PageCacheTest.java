@@ -0,0 +1,101 @@
+package recommender;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class PageCacheTest {
+    private static final String URL = "http://example.test/page";
+    private static final byte[] HTML = "<html><head><title>T</title></head><body>Über alles, über ALLES twice twice twice</body></html>"
+            .getBytes(StandardCharsets.UTF_8);
+    private Path dir;
+
+    @Before
+    public void createDir() throws IOException {
+        dir = Files.createTempDirectory("page-cache-test");
+    }
+
+    @After
+    public void deleteDir() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) Files.delete(p);
+        }
+    }
+
+    private Path countsFile() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            List<Path> counts = files.filter(p -> p.toString().endsWith(".counts")).toList();
+            assertEquals(1, counts.size());
+            return counts.get(0);
+        }
+    }
+
+    @Test
+    public void storedEntryReadsBack() throws IOException {
+        PageCache cache = new PageCache(dir);
+        assertNull(cache.lookup(URL));
+        TermTable counts = new TermTable();
+        counts.add("twice", 3);
+        counts.add("ber", 2);
+        cache.store(URL, "\"v1\"", "Mon, 01 Jan 2024 00:00:00 GMT", "T", "UTF-8", HTML, counts);
+        PageCache.Entry entry = new PageCache(dir).lookup(URL);
+        assertEquals(URL, entry.url());
+        assertEquals("\"v1\"", entry.etag());
+        assertEquals("Mon, 01 Jan 2024 00:00:00 GMT", entry.lastModified());
+        assertEquals("T", entry.title());
+        assertEquals("UTF-8", entry.charset());
+        TermTable read = cache.counts(URL);
+        assertEquals(2, read.size);
+        assertEquals(3, read.getCount("twice"));
+        assertEquals(2, read.getCount("ber"));
+    }
+
+    @Test
+    public void wordsLongerThan64KbReadBack() throws IOException {
+        //writeUTF could not hold a word this long
+        String word = "x".repeat(70_000);
+        TermTable counts = new TermTable();
+        counts.add(word, 2);
+        PageCache cache = new PageCache(dir);
+        cache.store(URL, null, null, "T", null, HTML, counts);
+        assertEquals(2, cache.counts(URL).getCount(word));
+        assertNull(cache.lookup(URL).etag());
+    }
+
+    @Test
+    public void countsFromAnOlderVersionAreRebuiltFromTheHtml() throws IOException {
+        PageCache cache = new PageCache(dir);
+        TermTable stale = new TermTable();
+        stale.add("stale", 1);
+        cache.store(URL, null, null, "T", "UTF-8", HTML, stale);
+        //the first version's layout: no header, writeUTF words
+        try (OutputStream raw = Files.newOutputStream(countsFile());
+             DataOutputStream out = new DataOutputStream(raw)) {
+            out.writeInt(1);
+            out.writeUTF("stale");
+            out.writeInt(1);
+        }
+        TermTable recounted = cache.counts(URL);
+        assertEquals(3, recounted.size);
+        assertEquals(3, recounted.getCount("twice"));
+        assertEquals(2, recounted.getCount("ber"));
+        assertEquals(2, recounted.getCount("alles"));
+        assertEquals(0, recounted.getCount("stale"));
+        //and written back in the current version
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(countsFile()))) {
+            assertEquals(PageCache.MAGIC, in.readInt());
+            assertEquals(PageCache.VERSION, in.readInt());
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package recommender;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+//PageFetcher against a local server, no network needed
+public class PageFetcherTest {
+    private HttpServer server;
+    private final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+    private final Map<String, AtomicInteger> failuresLeft = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private volatile long delayMillis = 0;
+
+    @Before
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    @After
+    public void stop() {
+        server.stop(0);
+    }
+
+    //"/missing" is a 404, "/flaky..." answers 503 while its failures last, anything else is a page;
+    //pages carry ETag "v1" and a request that already has it gets 304
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        requests.add(path);
+        exchange.getResponseHeaders().set("ETag", "\"v1\"");
+        if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            requests.add("304");
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        int now = inFlight.incrementAndGet();
+        maxInFlight.accumulateAndGet(now, Math::max);
+        try {
+            if (delayMillis > 0) Thread.sleep(delayMillis);
+            AtomicInteger failures = failuresLeft.get(path);
+            int status = path.equals("/missing") ? 404
+                    : failures != null && failures.getAndDecrement() > 0 ? 503 : 200;
+            String name = path.substring(1);
+            byte[] body = ("<html><head><title>" + name + "</title></head><body>Hello " + name
+                    + " hello</body></html>").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    //letters only, so the word counts keep the name whole
+    private static String word(int i) {
+        return String.valueOf((char) ('a' + i % 26)) + (char) ('a' + i / 26);
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/" + path;
+    }
+
+    private List<PageFetcher.Page> fetchAll(PageFetcher fetcher, String... paths) {
+        List<String> urls = new ArrayList<>();
+        for (String path : paths) urls.add(url(path));
+        List<PageFetcher.Page> pages = new ArrayList<>();
+        fetcher.fetchAll(urls, pages::add);
+        return pages;
+    }
+
+    @Test
+    public void pagesArriveInUrlOrderWithTheirWords() {
+        delayMillis = 5;
+        String[] paths = new String[40];
+        for (int i = 0; i < paths.length; i++) paths[i] = "page" + word(i);
+        List<PageFetcher.Page> pages = fetchAll(new PageFetcher(4, 4, 5_000, 0, null), paths);
+        assertEquals(paths.length, pages.size());
+        for (int i = 0; i < paths.length; i++) {
+            PageFetcher.Page page = pages.get(i);
+            assertEquals(url(paths[i]), page.url());
+            assertEquals(paths[i], page.title());
+            assertEquals(2, page.counts().getCount("hello"));
+            assertEquals(1, page.counts().getCount(paths[i]));
+        }
+    }
+
+    @Test
+    public void failedPagesAreSkipped() {
+        failuresLeft.put("/flaky", new AtomicInteger(Integer.MAX_VALUE));
+        List<PageFetcher.Page> pages = fetchAll(new PageFetcher(4, 4, 5_000, 1, null), "a", "missing", "flaky", "b");
+        assertEquals(List.of(url("a"), url("b")), pages.stream().map(PageFetcher.Page::url).toList());
+        //a 404 is not retried, a 503 is retried once
+        assertEquals(1, Collections.frequency(requests, "/missing"));
+        assertEquals(2, Collections.frequency(requests, "/flaky"));
+    }
+
+    @Test
+    public void serverErrorsAreRetried() {
+        failuresLeft.put("/flaky", new AtomicInteger(2));
+        List<PageFetcher.Page> pages = fetchAll(new PageFetcher(4, 4, 5_000, 2, null), "flaky");
+        assertEquals(1, pages.size());
+        assertEquals("flaky", pages.get(0).title());
+        assertEquals(3, requests.size());
+    }
+
+    @Test
+    public void requestsPerHostStayUnderTheLimit() {
+        delayMillis = 20;
+        String[] paths = new String[24];
+        for (int i = 0; i < paths.length; i++) paths[i] = "p" + word(i);
+        assertEquals(paths.length, fetchAll(new PageFetcher(16, 3, 5_000, 0, null), paths).size());
+        assertTrue("max in flight " + maxInFlight.get(), maxInFlight.get() <= 3);
+        assertTrue("max in flight " + maxInFlight.get(), maxInFlight.get() >= 2);
+    }
+
+    @Test
+    public void backoffDoesNotHoldThePermits() {
+        //one request at a time: while flaky waits out its pause, the next URL gets the permit
+        failuresLeft.put("/flaky", new AtomicInteger(1));
+        List<PageFetcher.Page> pages = fetchAll(new PageFetcher(1, 1, 5_000, 1, null), "flaky", "other");
+        assertEquals(2, pages.size());
+        assertEquals(List.of("/flaky", "/other", "/flaky"), requests);
+    }
+
+    @Test
+    public void unchangedPagesComeFromTheCache() throws IOException {
+        Path dir = Files.createTempDirectory("page-fetcher-test");
+        try {
+            PageCache cache = new PageCache(dir);
+            PageFetcher.Page fetched = fetchAll(new PageFetcher(4, 4, 5_000, 0, cache), "cached").get(0);
+            PageFetcher.Page revalidated = fetchAll(new PageFetcher(4, 4, 5_000, 0, cache), "cached").get(0);
+            assertEquals(List.of("/cached", "/cached", "304"), requests);
+            assertEquals(fetched.title(), revalidated.title());
+            assertEquals(2, revalidated.counts().getCount("hello"));
+            assertEquals(1, revalidated.counts().getCount("cached"));
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                for (Path p : files.sorted(Comparator.reverseOrder()).toList()) Files.delete(p);
+            }
+        }
+    }
+
+    @Test
+    public void slowResponsesTimeOut() {
+        delayMillis = 1_000;
+        assertEquals(0, fetchAll(new PageFetcher(4, 4, 100, 0, null), "slow").size());
+    }
+}